@@ -0,0 +1,115 @@
+package jpabook.jpashop.benchmark;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.repository.OrderFetchPlan;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 지연로딩 batch fetch : 고정 크기(@BatchSize, default_batch_fetch_size) vs 연관관계별 자동 조정(jpashop.batch-fetch.adaptive)
+ *
+ * 주문 pageSize건을 SUMMARY plan(회원, 배송 fetch join)으로 읽고 주문상품(컬렉션) -> 상품(프록시)을 지연로딩
+ *  - 고정 : Order.orderItem 1000, Item 100
+ *  - 자동 : 대기 수를 보고 16 ~ 1024 사이에서 조정
+ *
+ * 시간 말고도 trial 끝에 출력
+ *  - 왕복 수 : 1회 조회당 나간 SQL 수 (p6spy)
+ *  - 최대 힙 : 1회 조회 동안 힙 메모리 풀 사용량 peak 합의 최대값 (GC 시점에 따라 흔들리므로 대략적인 값)
+ * 2차 캐시는 꺼서(BenchmarkSupport 기본값) 매번 DB에서 읽도록 함
+ *
+ * 실행 : ./gradlew jmh -PjmhInclude=AdaptiveBatchFetchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdaptiveBatchFetchBenchmark {
+
+    @Param({"false", "true"})
+    boolean adaptive;
+
+    @Param({"20", "1000", "5000"})
+    int pageSize;
+
+    @Param({"10"})
+    int itemsPerOrder;
+
+    private final StatementCounter statementCounter = new StatementCounter();
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnlyTx;
+    private OrderRepository orderRepository;
+
+    private long invocations;
+    private long statements;
+    private long maxPeakHeap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start(Map.of("jpashop.batch-fetch.adaptive", adaptive), statementCounter);
+        BenchmarkSupport.seedOrders(context, pageSize, itemsPerOrder);
+
+        readOnlyTx = BenchmarkSupport.transactionTemplate(context, true);
+        orderRepository = context.getBean(OrderRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n[adaptive=%s, pageSize=%d] 왕복 %.1f회/조회, 최대 힙 %.1fMB%n",
+                adaptive, pageSize, (double) statements / invocations, maxPeakHeap / 1024.0 / 1024.0);
+        context.close();
+    }
+
+    @Benchmark
+    public void ordersWithItems(Blackhole bh) {
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long before = statementCounter.count.get();
+
+        readOnlyTx.executeWithoutResult(s -> {
+            for (Order order : orderRepository.findAll2Page(new OrderSearch(), 0, pageSize, OrderFetchPlan.SUMMARY)) {
+                bh.consume(order.getMember().getName());
+                for (OrderItem orderItem : order.getOrderItem()) {
+                    bh.consume(orderItem.getItem().getName());
+                }
+            }
+        });
+
+        invocations++;
+        statements += statementCounter.count.get() - before;
+        maxPeakHeap = Math.max(maxPeakHeap, heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum());
+    }
+
+    /**
+     * 나간 SQL 수 (p6spy)
+     */
+    static class StatementCounter extends JdbcEventListener {
+
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+            count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package jpabook.jpashop.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 벤치마크 공통 : 임베디드 H2(메모리)로 스프링 컨텍스트를 띄우고 주문 데이터를 시딩
+ * 벤치마크마다 DB 이름을 다르게 줘서 서로 영향이 없도록 함
+ * 캐시(조회 결과, 2차, 쿼리)와 쿼리 카운터는 기본으로 끔, 필요한 벤치마크만 properties로 다시 켬
+ */
+public final class BenchmarkSupport {
+
+    private static final int FLUSH_SIZE = 500;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * @param properties 벤치마크 파라미터에 따라 덮어쓸 설정 (ex: default_batch_fetch_size)
+     */
+    public static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        return run(properties, WebApplicationType.NONE);
+    }
+
+    /**
+     * 벤치마크 쪽 객체를 빈으로 같이 등록해서 띄움 (ex: SQL 캡처용 p6spy JdbcEventListener)
+     */
+    public static ConfigurableApplicationContext start(Map<String, Object> properties, Object... beans) {
+        return run(properties, WebApplicationType.NONE, beans);
+    }
+
+    /**
+     * 톰캣까지 띄움 (랜덤 포트, local.server.port 로 확인)
+     */
+    public static ConfigurableApplicationContext startWeb(Map<String, Object> properties) {
+        Map<String, Object> props = new HashMap<>(properties);
+        props.put("server.port", 0);
+        return run(props, WebApplicationType.SERVLET);
+    }
+
+    private static ConfigurableApplicationContext run(Map<String, Object> properties, WebApplicationType webApplicationType,
+                                                      Object... beans) {
+        // devtools 재시작 기능은 벤치마크에선 끔
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        Map<String, Object> props = new HashMap<>();
+        props.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        props.put("spring.jpa.hibernate.ddl-auto", "create");
+        props.put("spring.jpa.open-in-view", "false");
+        props.put("spring.jpa.properties.hibernate.format_sql", "false");
+        props.put("logging.level.org.hibernate.SQL", "warn");
+        props.put("logging.level.org.hibernate.orm.jdbc.bind", "warn");
+        props.put("decorator.datasource.p6spy.enable-logging", "false");
+        props.put("spring.cache.type", "none"); // 조회 결과 캐시는 끄고 쿼리 자체를 측정
+        // 2차 캐시/쿼리 캐시도 끔 => 두번째 반복부터 상품/회원이 캐시에서 나오면 SQL 비용이 빠진 숫자가 나옴
+        props.put("spring.jpa.properties.hibernate.cache.use_second_level_cache", "false");
+        props.put("spring.jpa.properties.hibernate.cache.use_query_cache", "false");
+        props.put("jpashop.query-counter.enabled", "false"); // SQL마다 도는 리스너 비용이 측정에 섞이지 않도록
+        props.put("jpashop.warmup.enabled", "false"); // warm-up은 JMH가 함
+        props.put("jpashop.batch-fetch.adaptive", "false"); // batch 크기는 벤치마크 파라미터(default_batch_fetch_size) 그대로
+        props.putAll(properties);
+
+        return new SpringApplicationBuilder(JpashopApplication.class)
+                .web(webApplicationType)
+                .properties(props)
+                .initializers(context -> {
+                    for (Object bean : beans) {
+                        context.getBeanFactory().registerSingleton(bean.getClass().getName(), bean);
+                    }
+                })
+                .run();
+    }
+
+    public static TransactionTemplate transactionTemplate(ConfigurableApplicationContext context, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.setReadOnly(readOnly);
+        return tx;
+    }
+
+    /**
+     * 회원 (orderCount / 10)명, 상품 (itemsPerOrder * 10)개를 만들고 주문당 itemsPerOrder개의 주문상품을 가진 주문을 생성
+     * @return 생성한 상품 id 목록
+     */
+    public static List<Long> seedOrders(ConfigurableApplicationContext context, int orderCount, int itemsPerOrder) {
+        EntityManager em = context.getBean(EntityManager.class);
+        return transactionTemplate(context, false).execute(status -> {
+            List<Member> members = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, orderCount / 10); i++) {
+                Member member = new Member();
+                member.setName("member" + i);
+                member.setAddress(new Address("city" + (i % 50), "street" + i, "zip" + i));
+                em.persist(member);
+                members.add(member);
+            }
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, itemsPerOrder * 10); i++) {
+                Book book = new Book();
+                book.setName("book" + i);
+                book.setPrice(1000 + i);
+                book.setStockQuantity(Integer.MAX_VALUE / 2);
+                em.persist(book);
+                books.add(book);
+            }
+            List<Long> itemIds = books.stream().map(Book::getId).toList();
+            em.flush();
+
+            for (int i = 0; i < orderCount; i++) {
+                Member member = members.get(i % members.size());
+                OrderItem[] orderItems = new OrderItem[itemsPerOrder];
+                for (int j = 0; j < itemsPerOrder; j++) {
+                    Book book = books.get((i + j) % books.size());
+                    orderItems[j] = OrderItem.createOrderItem(book, book.getPrice(), 1);
+                }
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+                em.persist(Order.createOrder(member, delivery, orderItems));
+
+                if ((i + 1) % FLUSH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                    // 준영속이 된 회원/상품은 FK 참조용으로만 계속 사용, 주문 목록은 메모리에 쌓이지 않게 비워줌
+                    members.forEach(m -> m.getOrders().clear());
+                }
+            }
+            em.flush();
+            em.clear();
+            return itemIds;
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderTreePage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderApiController V1~V6 조회 전략 비교
+ *  - findAllByString           : V1/V2 (지연로딩 N+1)
+ *  - findAllWithItem           : V3   (컬렉션 fetch join)
+ *  - findAllWithMemberDelivery : V3.1 (to_one fetch join + batch fetch)
+ *  - findOrderQueryDtos        : V4   (DTO 1+N)
+ *  - findAllByDto_optimiztion  : V5   (DTO 1+1)
+ *  - findAllByDto_flat         : V6   (flat join 1번)
+ *  - findPageByDto_flat        : V6.1 (id 키셋 페이징 + 페이지별 flat join, 주문 트리로 접음)
+ *
+ * 엔티티 조회 방식은 DTO로 변환할때처럼 연관관계를 모두 초기화 해야 실제 비용이 나오므로, 트랜잭션 안에서 다 건드려줌
+ * 실행 : ./gradlew jmh -PjmhInclude=OrderQueryBenchmark  (gc 프로파일러로 할당률도 같이 나옴)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderQueryBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int orderCount;
+
+    @Param({"2", "10"})
+    int itemsPerOrder;
+
+    @Param({"100", "1000"})
+    int batchFetchSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnlyTx;
+    private OrderRepository orderRepository;
+    private OrderQueryRepository orderQueryRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start(Map.of(
+                "spring.jpa.properties.hibernate.default_batch_fetch_size", batchFetchSize));
+        BenchmarkSupport.seedOrders(context, orderCount, itemsPerOrder);
+
+        readOnlyTx = BenchmarkSupport.transactionTemplate(context, true);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderQueryRepository = context.getBean(OrderQueryRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void v2_findAllByString(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(s -> touch(orderRepository.findAllByString(new OrderSearch()), bh));
+    }
+
+    @Benchmark
+    public void v3_findAllWithItem(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(s -> touch(orderRepository.findAllWithItem(), bh));
+    }
+
+    @Benchmark
+    public void v31_findAllWithMemberDelivery(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(s -> touch(orderRepository.findAllWithMemberDelivery(0, orderCount), bh));
+    }
+
+    @Benchmark
+    public void v4_findOrderQueryDtos(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(s -> bh.consume(orderQueryRepository.findOrderQueryDtos()));
+    }
+
+    @Benchmark
+    public void v5_findAllByDto_optimiztion(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(s -> bh.consume(orderQueryRepository.findAllByDto_optimiztion()));
+    }
+
+    @Benchmark
+    public void v6_findAllByDto_flat(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(s -> bh.consume(orderQueryRepository.findAllByDto_flat()));
+    }
+
+    // 전체를 100건 페이지로 끝까지 읽음
+    @Benchmark
+    public void v61_findPageByDto_flat(Blackhole bh) {
+        readOnlyTx.executeWithoutResult(s -> {
+            OrderTreePage page = orderQueryRepository.findPageByDto_flat(null, 100);
+            bh.consume(page.orders());
+            while (page.next() != null) {
+                page = orderQueryRepository.findPageByDto_flat(page.next(), 100);
+                bh.consume(page.orders());
+            }
+        });
+    }
+
+    // OrderDto 변환과 같은 범위로 지연로딩 강제 초기화
+    private static void touch(List<Order> orders, Blackhole bh) {
+        for (Order order : orders) {
+            bh.consume(order.getMember().getName());
+            bh.consume(order.getDelivery().getAddress());
+            for (OrderItem orderItem : order.getOrderItem()) {
+                bh.consume(orderItem.getItem().getName());
+            }
+        }
+    }
+}
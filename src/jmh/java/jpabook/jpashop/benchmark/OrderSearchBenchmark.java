@@ -0,0 +1,187 @@
+package jpabook.jpashop.benchmark;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 검색(findAll2) 벤치마크 : 대량 데이터에서 선언한 인덱스를 타는지 확인
+ *  - orders(status, order_date, member_id) : 상태 + 주문일시 범위 + 최신순
+ *  - member_name_gram(gram, member_id)     : 회원이름 like '%이름%' (n-gram 색인으로 후보 회원)
+ *  - item(name)                            : 상품이름 exists 서브쿼리
+ *
+ * 주문 1000만건은 JPA로 넣으면 너무 오래 걸려서 H2 system_range로 insert ... select
+ * setUp 에서 검색마다 실제 나간 SQL(p6spy, 바인딩 값 포함)에 EXPLAIN을 붙여 실행계획을 출력함
+ *  => 실행계획에 PUBLIC.IDX_... 로 나오는게 사용한 인덱스 (tableScan 이면 인덱스를 못탄것)
+ *
+ * 실행 : ./gradlew jmh -PjmhInclude=OrderSearchBenchmark  (메모리 DB라 힙이 넉넉해야 함)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class OrderSearchBenchmark {
+
+    private static final int INSERT_CHUNK = 1_000_000;
+    private static final int ITEM_COUNT = 1000;
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"10000000"})
+    int orderCount;
+
+    @Param({"2"})
+    int itemsPerOrder;
+
+    private final SqlCapture sqlCapture = new SqlCapture();
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnlyTx;
+    private OrderRepository orderRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 날짜 바인딩 값을 H2가 읽을 수 있는 형식으로 남김
+        System.setProperty("p6spy.config.databaseDialectTimestampFormat", "yyyy-MM-dd HH:mm:ss.SSS");
+        context = BenchmarkSupport.start(Map.of(), sqlCapture);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seed(jdbcTemplate);
+
+        readOnlyTx = BenchmarkSupport.transactionTemplate(context, true);
+        orderRepository = context.getBean(OrderRepository.class);
+
+        searches().forEach((name, search) -> {
+            sqlCapture.sql = null;
+            readOnlyTx.executeWithoutResult(s -> orderRepository.findAll2(search));
+            System.out.println("\n[" + name + "] " + sqlCapture.sql);
+            jdbcTemplate.queryForList("explain " + sqlCapture.sql, String.class).forEach(System.out::println);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void statusAndDateRange(Blackhole bh) {
+        search(statusAndDateRange(), bh);
+    }
+
+    @Benchmark
+    public void memberNameSubstring(Blackhole bh) {
+        search(memberNameSubstring(), bh);
+    }
+
+    @Benchmark
+    public void itemNameAndDateRange(Blackhole bh) {
+        search(itemNameAndDateRange(), bh);
+    }
+
+    @Benchmark
+    public void totalPriceAndDateRange(Blackhole bh) {
+        search(totalPriceAndDateRange(), bh);
+    }
+
+    private void search(OrderSearch search, Blackhole bh) {
+        readOnlyTx.executeWithoutResult(s -> bh.consume(orderRepository.findAll2(search)));
+    }
+
+    private Map<String, OrderSearch> searches() {
+        Map<String, OrderSearch> searches = new LinkedHashMap<>();
+        searches.put("statusAndDateRange", statusAndDateRange());
+        searches.put("memberNameSubstring", memberNameSubstring());
+        searches.put("itemNameAndDateRange", itemNameAndDateRange());
+        searches.put("totalPriceAndDateRange", totalPriceAndDateRange());
+        return searches;
+    }
+
+    // 주문은 1분 간격이라 하루 = 1440건
+    private static OrderSearch statusAndDateRange() {
+        OrderSearch search = new OrderSearch();
+        search.setOrderStatus(OrderStatus.ORDER);
+        search.setOrderDateFrom(BASE_DATE.minusDays(2));
+        search.setOrderDateTo(BASE_DATE.minusDays(1));
+        return search;
+    }
+
+    private static OrderSearch memberNameSubstring() {
+        OrderSearch search = new OrderSearch();
+        search.setMemberName("ber12345");
+        return search;
+    }
+
+    private static OrderSearch itemNameAndDateRange() {
+        OrderSearch search = statusAndDateRange();
+        search.setItemName("book7");
+        return search;
+    }
+
+    private static OrderSearch totalPriceAndDateRange() {
+        OrderSearch search = statusAndDateRange();
+        search.setMinTotalPrice(4000);
+        search.setSort(OrderSearch.Sort.TOTAL_PRICE_DESC);
+        return search;
+    }
+
+    /**
+     * 회원 (orderCount / 10)명, 상품 1000개, 주문 orderCount건 (1분 간격으로 과거로, 10건 중 1건 취소)
+     */
+    private void seed(JdbcTemplate jdbcTemplate) {
+        int memberCount = Math.max(1, orderCount / 10);
+        for (long from = 1; from <= memberCount; from += INSERT_CHUNK) {
+            long to = Math.min(from + INSERT_CHUNK - 1, memberCount);
+            jdbcTemplate.update("insert into member (member_id, name, city, street, zipcode)" +
+                    " select x, 'member' || x, 'city' || mod(x, 50), 'street' || x, 'zip' || x" +
+                    " from system_range(?, ?)", from, to);
+            // MemberNameGram.grams 와 같은 조각 : 모든 위치에서 최대 3글자
+            jdbcTemplate.update("insert into member_name_gram (gram, member_id)" +
+                    " select distinct substring(m.name, p.x, 3), m.member_id" +
+                    " from member m join system_range(1, 32) p on p.x <= length(m.name)" +
+                    " where m.member_id between ? and ?", from, to);
+        }
+        jdbcTemplate.update("insert into item (dtype, item_id, name, price, stock_quantity, version)" +
+                " select 'B', x, 'book' || x, 1000 + x, 1000000, 0 from system_range(1, ?)", ITEM_COUNT);
+        for (long from = 1; from <= orderCount; from += INSERT_CHUNK) {
+            long to = Math.min(from + INSERT_CHUNK - 1, orderCount);
+            jdbcTemplate.update("insert into orders (order_id, member_id, order_date, status)" +
+                    " select x, mod(x, ?) + 1, dateadd(MINUTE, -x, ?), case when mod(x, 10) = 0 then ? else ? end" +
+                    " from system_range(?, ?)",
+                    memberCount, BASE_DATE, OrderStatus.CANCEL.ordinal(), OrderStatus.ORDER.ordinal(), from, to);
+            jdbcTemplate.update("insert into order_item (order_item_id, order_id, item_id, order_price, count)" +
+                    " select x, (x - 1) / ? + 1, mod(x, ?) + 1, 1000 + mod(x, ?) + 1, 1 + mod(x, 3)" +
+                    " from system_range(?, ?)",
+                    itemsPerOrder, ITEM_COUNT, ITEM_COUNT, (from - 1) * itemsPerOrder + 1, to * itemsPerOrder);
+        }
+        jdbcTemplate.execute("analyze"); // 인덱스 선택도 통계 갱신
+    }
+
+    /**
+     * 마지막으로 나간 주문 조회 SQL (바인딩 값 포함)
+     */
+    static class SqlCapture extends JdbcEventListener {
+
+        private volatile String sql;
+
+        @Override
+        public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+            String executed = statementInformation.getSqlWithValues();
+            if (executed.startsWith("select") && executed.contains(" from orders ")) {
+                sql = executed;
+            }
+        }
+    }
+}
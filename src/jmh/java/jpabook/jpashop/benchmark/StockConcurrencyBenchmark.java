@@ -0,0 +1,93 @@
+package jpabook.jpashop.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.service.OrderFacade;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 재고 차감 동시성 제어 방식 비교 (jpashop.stock.concurrency.mode)
+ *  - OPTIMISTIC    : @Version + 재시도
+ *  - PESSIMISTIC   : select ... for update
+ *  - ATOMIC_UPDATE : 조건부 update 한 문장
+ *
+ * 여러 스레드가 hotItems 개의 상품에 동시에 주문, 처리량과 함께 스레드별 결과를 보조 카운터로 집계
+ *  - ok      : 주문 성공
+ *  - aborted : 재시도 후에도 충돌 / 락 대기 타임아웃으로 실패한 주문
+ * 낙관적 락 재시도 횟수는 trial 끝날때 jpashop.stock.conflict 메트릭으로 출력
+ *
+ * 실행 : ./gradlew jmh -PjmhInclude=StockConcurrencyBenchmark -PjmhThreads=8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class StockConcurrencyBenchmark {
+
+    @Param({"OPTIMISTIC", "PESSIMISTIC", "ATOMIC_UPDATE"})
+    String mode;
+
+    /** 주문이 몰리는 상품 수 (1 = 한 상품에 모든 주문이 경합) */
+    @Param({"1", "16"})
+    int hotItems;
+
+    private ConfigurableApplicationContext context;
+    private OrderFacade orderFacade;
+    private List<Long> itemIds;
+    private Long memberId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start(Map.of(
+                "jpashop.stock.concurrency.mode", mode,
+                "spring.jpa.properties.hibernate.default_batch_fetch_size", 100));
+        // 주문 1건짜리로 회원 1명 + 상품 hotItems개 시딩 (재고는 충분히 크게)
+        itemIds = BenchmarkSupport.seedOrders(context, 1, (hotItems + 9) / 10).subList(0, hotItems);
+        memberId = context.getBean(MemberRepository.class).findAll().get(0).getId();
+        orderFacade = context.getBean(OrderFacade.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        System.out.printf("%n[%s, hotItems=%d] conflict retried=%.0f, aborted=%.0f%n", mode, hotItems,
+                registry.counter("jpashop.stock.conflict", "result", "retried").count(),
+                registry.counter("jpashop.stock.conflict", "result", "aborted").count());
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+        public long ok;
+        public long aborted;
+        private long next;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            ok = 0;
+            aborted = 0;
+        }
+    }
+
+    @Benchmark
+    public void order(Outcome outcome) {
+        Long itemId = itemIds.get((int) (outcome.next++ % itemIds.size()));
+        try {
+            orderFacade.order(memberId, itemId, 1);
+            outcome.ok++;
+        } catch (ConcurrencyFailureException | NotEnoughStockException e) {
+            outcome.aborted++;
+        }
+    }
+}
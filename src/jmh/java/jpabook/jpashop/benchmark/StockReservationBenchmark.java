@@ -0,0 +1,77 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.service.StockReservationEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 재고 차감 경합 벤치마크
+ *  - rowLock_removeStock : 기존 방식 흉내. 상품별 락(= item row lock)을 잡은 채로 트랜잭션 나머지 작업(work)까지 수행
+ *  - engine_reserve      : 예약 엔진. CAS로 차감만 하고 나머지 작업은 락 밖에서 수행
+ *
+ * 코어 수에 따른 확장성은 스레드 수를 바꿔가며 비교
+ *  ./gradlew jmh -PjmhInclude=StockReservationBenchmark -PjmhThreads=1   (2, 4, 8, ...)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class StockReservationBenchmark {
+
+    /** 주문이 몰리는 상품 수 (1 = flash sale 한 상품) */
+    @Param({"1", "64"})
+    int hotItems;
+
+    /** 재고 차감 이후 트랜잭션에서 하는 나머지 작업량 (주문/배송 insert 등) */
+    @Param({"0", "200"})
+    int work;
+
+    private StockReservationEngine engine;
+    private Object[] rowLocks;
+    private int[] rowStock;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        engine = new StockReservationEngine(true, 64, itemId -> Integer.MAX_VALUE, deltas -> { });
+        rowLocks = new Object[hotItems];
+        rowStock = new int[hotItems];
+        for (int i = 0; i < hotItems; i++) {
+            rowLocks[i] = new Object();
+        }
+        Arrays.fill(rowStock, Integer.MAX_VALUE);
+    }
+
+    @State(Scope.Thread)
+    public static class Picker {
+        private long next;
+
+        long nextItem(int hotItems) {
+            return (next++) % hotItems;
+        }
+    }
+
+    @Benchmark
+    public void rowLock_removeStock(Picker picker) {
+        int idx = (int) picker.nextItem(hotItems);
+        synchronized (rowLocks[idx]) {
+            if (rowStock[idx] < 1) {
+                throw new NotEnoughStockException("need more stock");
+            }
+            rowStock[idx]--;
+            Blackhole.consumeCPU(work); // 커밋될 때까지 row lock 유지
+        }
+    }
+
+    @Benchmark
+    public void engine_reserve(Picker picker) {
+        engine.reserve(picker.nextItem(hotItems), 1);
+        Blackhole.consumeCPU(work); // 재고 락 없이 진행
+    }
+}
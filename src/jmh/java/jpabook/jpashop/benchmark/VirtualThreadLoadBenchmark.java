@@ -0,0 +1,101 @@
+package jpabook.jpashop.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 요청 부하 : 플랫폼 스레드(톰캣 스레드 풀 200) vs 가상 스레드(spring.threads.virtual.enabled)
+ *
+ * 한 번의 벤치마크 호출 = clients 개의 요청을 동시에 보내고 모두 끝날때까지 대기
+ * @OperationsPerInvocation 으로 나눠서 결과는 요청 1건 기준 처리량(ops/s)으로 나옴
+ *
+ * 가상 스레드는 JDK 21 이상에서만 켜짐 (17에서 실행하면 두 모드가 같은 결과)
+ * 임베디드 H2(메모리)는 I/O 대기가 거의 없어서 차이가 작게 나옴, 네트워크 DB일수록 차이가 커짐
+ *
+ * 실행 : ./gradlew jmh -PjmhInclude=VirtualThreadLoadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VirtualThreadLoadBenchmark {
+
+    private static final int CLIENTS = 1000;
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    @Param({"/api/v5/orders", "/api/v4/simple-orders"})
+    String path;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = threads.equals("virtual");
+        if (virtual && Runtime.version().feature() < 21) {
+            System.out.println("JDK " + Runtime.version().feature() + " : 가상 스레드 미지원, 플랫폼 스레드로 실행됨");
+        }
+        Map<String, Object> props = new HashMap<>();
+        props.put("spring.threads.virtual.enabled", virtual);
+        props.put("jpashop.query.parallel-fan-out", virtual);
+        props.put("spring.datasource.hikari.maximum-pool-size", 50);
+        context = BenchmarkSupport.startWeb(props);
+        BenchmarkSupport.seedOrders(context, 100, 2);
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        clientExecutor = Executors.newFixedThreadPool(16);
+        client = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clientExecutor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public int concurrentClients() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) {
+                ok++;
+            }
+        }
+        if (ok != CLIENTS) {
+            throw new IllegalStateException("실패한 요청 " + (CLIENTS - ok) + "건");
+        }
+        return ok;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.MemberNameGramRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +30,7 @@ public class InitDb {
     static class InitService{
 
         private final EntityManager em;
+        private final MemberNameGramRepository memberNameGramRepository;
         public void dbInit1(){
             Member member = createMember("userA", "서울","1","1111");
 
@@ -41,6 +43,7 @@ public class InitDb {
 
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.of(order)); // 목록 조회용 요약 (OrderService.order 와 같이)
 
         }
 
@@ -56,6 +59,7 @@ public class InitDb {
 
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.of(order)); // 목록 조회용 요약 (OrderService.order 와 같이)
 
         }
 
@@ -64,6 +68,7 @@ public class InitDb {
             member.setName(name);
             member.setAddress(new Address(city, street, zipcode));
             em.persist(member);
+            memberNameGramRepository.index(member);
             return member;
         }
         private Book createBook(String name, int price, int stockQuantity) {
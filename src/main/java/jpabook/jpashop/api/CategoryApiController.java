@@ -0,0 +1,53 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.CategoryTree;
+import jpabook.jpashop.service.CategoryTreeService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * 카테고리 네비게이션 : 메모리 스냅샷(CategoryTreeService)에서만 읽음 => DB 조회 없음
+ * 한 요청 안의 조회는 같은 스냅샷에서 (중간에 트리가 교체돼도 브레드크럼/자식이 서로 어긋나지 않도록)
+ */
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+    private final CategoryTreeService categoryTreeService;
+
+    @GetMapping("/api/categories")
+    public Result<List<CategoryTree.Node>> roots() {
+        return new Result<>(categoryTreeService.snapshot().roots());
+    }
+
+    @GetMapping("/api/categories/{categoryId}")
+    public CategoryView category(@PathVariable Long categoryId) {
+        CategoryTree tree = categoryTreeService.snapshot();
+        if (!tree.contains(categoryId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "존재하지 않는 카테고리 입니다.");
+        }
+        return new CategoryView(tree.breadcrumb(categoryId), tree.children(categoryId), tree.itemIdsInSubtree(categoryId));
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T> {
+        private T data;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CategoryView {
+        private List<CategoryTree.Node> breadcrumb;
+        private List<CategoryTree.Node> children;
+        private long[] itemIds; // 서브트리 전체 상품 (상품 상세는 2차 캐시에서)
+    }
+}
@@ -1,16 +1,24 @@
 package jpabook.jpashop.api;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberImportResult;
+import jpabook.jpashop.service.MemberImportService;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,7 +27,10 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MemberApiController {
 
+    private static final int MAX_IMPORT_CHUNK_SIZE = 10_000; // 영속성 컨텍스트 / 트랜잭션 하나에 담을 최대 회원 수
+
     private final MemberService memberService;
+    private final MemberImportService memberImportService;
 
     @GetMapping("/api/v1/members")
     public List<Member> membersV1(){
@@ -91,6 +102,21 @@ public class MemberApiController {
         return new CreateMemberResponse(id);
     }
 
+    /**
+     * 제휴사 회원 CSV 대량 적재 (Content-Type: text/csv, 본문이 곧 파일)
+     * multipart로 받으면 파일 전체를 임시파일/메모리에 받고 나서 시작 => 요청 본문 스트림을 그대로 한줄씩 읽음
+     * chunkSize는 1 ~ MAX_IMPORT_CHUNK_SIZE (밖이면 400)
+     */
+    @PostMapping(value = "/api/v1/members/import", consumes = "text/csv")
+    public MemberImportResult importMembers(HttpServletRequest request,
+                                            @RequestParam(value = "chunkSize", defaultValue = "1000") int chunkSize) throws IOException {
+        if (chunkSize < 1 || chunkSize > MAX_IMPORT_CHUNK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "chunkSize는 1 ~ " + MAX_IMPORT_CHUNK_SIZE + " 사이여야 합니다.");
+        }
+        return memberImportService.importCsv(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8), chunkSize);
+    }
+
     // 회원정보 수정하기 RestAPI 스타일
     @PutMapping("/api/v2/members/{id}")
     public UpdateMemberResponse updateMemberV2(
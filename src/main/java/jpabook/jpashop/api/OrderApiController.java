@@ -1,23 +1,60 @@
 package jpabook.jpashop.api;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderFetchPlan;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderTreePage;
+import jpabook.jpashop.service.IngestOrder;
+import jpabook.jpashop.service.IngestResult;
+import jpabook.jpashop.service.OrderExportService;
+import jpabook.jpashop.service.OrderIngestService;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderFacade;
+import jpabook.jpashop.service.OrderService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
 /**
@@ -28,8 +65,16 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OrderApiController {
 
+     private static final String NDJSON = "application/x-ndjson";
+     private static final int MAX_INGEST_CHUNK_SIZE = 10_000; // 영속성 컨텍스트 / 트랜잭션 하나에 담을 최대 주문 수
+
      private final OrderRepository orderRepository;
      private final OrderQueryRepository orderQueryRepository;
+     private final OrderExportService orderExportService;
+     private final OrderFacade orderFacade;
+     private final OrderIngestService orderIngestService;
+     private final ObjectMapper objectMapper;
+     private final OrderService orderService;
 
     /** V1: 엔티티 그대로반환  */
      @GetMapping("/api/v1/orders")
@@ -100,6 +145,32 @@ public class OrderApiController {
         return collect;
     }
 
+    /** V3.1 + 키셋 페이징
+     * offset 대신 이전 페이지에서 받은 커서(after)를 넘겨서 다음 페이지를 조회
+     * => 몇번째 페이지든 조회 속도가 일정함 (offset만큼 읽고 버리는 비용이 없음)
+     * 응답의 nextCursor가 null이면 마지막 페이지, limit은 1 ~ 1000 (밖이면 400)
+     */
+    @GetMapping("/api/v3.1/orders/cursor")
+    public CursorResult<List<OrderDto>> ordersV3_cursor(@RequestParam(value = "after", required = false) String after,
+                                                        @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        PageLimits.check(limit);
+        OrderCursor cursor = PageLimits.cursor(after);
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(cursor, limit);
+
+        List<OrderDto> collect = orders.stream()
+                .map(OrderDto::new)
+                .toList();
+        String nextCursor = orders.size() < limit ? null : OrderCursor.of(orders.get(orders.size() - 1)).encode();
+        return new CursorResult<>(collect, nextCursor);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CursorResult<T> {
+        private T data;
+        private String nextCursor;
+    }
+
     /** V3 vs V3.1
      * V3의 경우 모든 컬렉션을 fetch join을 걸어서, 쿼리는 한번에 나가지만, 중복된 데이터가 많이 발생한다.
      * (일대다 조인은 데이터 조회시 일의 데이터가 다만큼 뻥튀기되서 조회되니깐)
@@ -150,6 +221,202 @@ public class OrderApiController {
         return flats;
     }
 
+    /**
+     * V6.1 : 플랫 조회 + 페이징
+     * 주문 id를 먼저 키셋 페이징하고, 그 주문들만 플랫 join 해서 주문 트리로 접어서 반환
+     * => V6의 쿼리 한번(페이지당 id 조회 + 플랫 조회)은 살리면서, 중복 row 제거와 페이징 문제를 해결
+     */
+    @GetMapping("/api/v6.1/orders")
+    public CursorResult<List<OrderQueryDto>> ordersV6_page(@RequestParam(value = "after", required = false) String after,
+                                                          @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        OrderCursor cursor = PageLimits.cursor(after);
+        OrderTreePage page = orderQueryRepository.findPageByDto_flat(cursor, PageLimits.check(limit));
+        return new CursorResult<>(page.orders(), page.next() == null ? null : page.next().encode());
+    }
+
+    /**
+     * 주문 한건 : fetch plan(FULL)으로 회원, 배송, 주문상품 + 상품까지 쿼리 한번에 (DTO 변환 중 지연로딩 없음)
+     */
+    @GetMapping("/api/v1/orders/{orderId}")
+    public OrderDto order(@PathVariable Long orderId) {
+        Order order = orderRepository.findOne(orderId, OrderFetchPlan.FULL);
+        if (order == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "존재하지 않는 주문 입니다. orderId=" + orderId);
+        }
+        return new OrderDto(order);
+    }
+
+    /**
+     * 주문 검색 페이징 : ?memberName=..&page=0&size=20&countMode=EXACT|APPROXIMATE|NONE
+     * 결과가 1000건에서 잘렸는지 모르던 findAll2 대신, 전체 건수(또는 다음 페이지 유무)를 같이 반환
+     * totalElements는 countMode=NONE이면 null
+     */
+    @GetMapping("/api/orders/search")
+    public PageResult<List<OrderDto>> searchOrders(@ModelAttribute OrderSearch orderSearch,
+                                                   @PageableDefault(size = 20) Pageable pageable) {
+        Slice<Order> orders = orderService.searchOrders(orderSearch, pageable);
+        List<OrderDto> collect = orders.stream()
+                .map(OrderDto::new)
+                .toList();
+        Long total = orders instanceof Page<Order> page ? page.getTotalElements() : null;
+        return new PageResult<>(collect, orders.getNumber(), orders.getSize(), orders.hasNext(),
+                total, total != null && orderSearch.countsByEstimate());
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class PageResult<T> {
+        private T data;
+        private int page;
+        private int size;
+        private boolean hasNext;
+        private Long totalElements;
+        private boolean approximateTotal; // 테이블 통계로 추정한 건수
+    }
+
+    /**
+     * 장바구니 주문 : 여러 상품을 한번에 주문
+     * 클라이언트가 상품마다 주문을 반복 호출하지 않아도 됨 (트랜잭션 1번, 상품 조회 1번)
+     */
+    @PostMapping("/api/v1/orders")
+    public CreateOrderResponse createOrder(@RequestBody @Valid CreateOrderRequest request) {
+        List<OrderLine> lines = request.getLines().stream()
+                .map(line -> new OrderLine(line.getItemId(), line.getCount()))
+                .toList();
+        Long orderId = orderFacade.order(request.getMemberId(), lines);
+        return new CreateOrderResponse(orderId);
+    }
+
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty
+        private List<@Valid OrderLineRequest> lines;
+    }
+
+    @Data
+    static class OrderLineRequest {
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long orderId;
+    }
+
+    /**
+     * 주문 대량 적재 (외부 시스템 주문 replay)
+     * chunk 단위 트랜잭션 + JDBC batch insert, 거절된 주문은 (순번, 사유)로 응답
+     * 본문(JSON 배열)은 List로 한번에 바인딩하지 않고 주문 하나씩 읽어서 넘김 => 백만 건이어도 메모리는 chunk 크기만큼
+     * chunkSize는 1 ~ MAX_INGEST_CHUNK_SIZE (밖이면 400)
+     *
+     * 중간에 잘못된 JSON을 만나면 거기서 읽기를 멈추고, 그 앞까지 읽은 주문은 적재한 뒤 400 + 결과
+     * => 앞 chunk들은 이미 커밋됐으므로 결과의 abortedAt(읽지 못한 순번)부터 다시 보내면 됨
+     */
+    @PostMapping(value = "/api/v1/orders/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IngestResult> ingestOrders(HttpServletRequest request,
+                                                     @RequestParam(value = "chunkSize", defaultValue = "1000") int chunkSize) throws IOException {
+        if (chunkSize < 1 || chunkSize > MAX_INGEST_CHUNK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "chunkSize는 1 ~ " + MAX_INGEST_CHUNK_SIZE + " 사이여야 합니다.");
+        }
+        // 루트가 배열이면 MappingIterator가 원소를 하나씩 꺼내줌
+        try (MappingIterator<IngestOrderRequest> requests = objectMapper.readerFor(IngestOrderRequest.class)
+                .readValues(request.getInputStream())) {
+            IngestOrderReader orders = new IngestOrderReader(requests);
+            IngestResult result = orderIngestService.ingest(orders, chunkSize);
+            if (orders.error == null) {
+                return ResponseEntity.ok(result);
+            }
+            result.abort(orders.read, "잘못된 주문 JSON 입니다. : " + orders.error.getMessage());
+            return ResponseEntity.badRequest().body(result);
+        } catch (JsonProcessingException e) {
+            // 배열 시작부터 잘못된 경우 => 적재된 것 없음
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 주문 JSON 입니다. : " + e.getMessage());
+        }
+    }
+
+    /**
+     * 본문의 주문을 하나씩 읽어서 넘김
+     * JSON 오류는 예외로 던지지 않고(던지면 앞에서 적재한 결과까지 잃음) 기록만 하고 읽기를 끝냄
+     */
+    static class IngestOrderReader implements Iterator<IngestOrder> {
+
+        private final MappingIterator<IngestOrderRequest> requests;
+        private IngestOrder next;
+        private int read;           // 다음에 읽을 주문 순번
+        private RuntimeException error;
+
+        IngestOrderReader(MappingIterator<IngestOrderRequest> requests) {
+            this.requests = requests;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (error != null) {
+                return false;
+            }
+            try {
+                if (!requests.hasNext()) {
+                    return false;
+                }
+                next = requests.next().toIngestOrder();
+                return true;
+            } catch (RuntimeException e) {
+                // 매핑 오류는 RuntimeJsonMappingException, 문법 오류는 RuntimeException(JsonParseException)으로 감싸져서 옴
+                if (!(e instanceof RuntimeJsonMappingException) && !(e.getCause() instanceof JsonProcessingException)) {
+                    throw e; // 연결 끊김 같은 IO 오류
+                }
+                error = e;
+                return false;
+            }
+        }
+
+        @Override
+        public IngestOrder next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            IngestOrder order = next;
+            next = null;
+            read++;
+            return order;
+        }
+    }
+
+    @Data
+    static class IngestOrderRequest {
+        private Long memberId;
+        private List<OrderLineRequest> lines;
+        private LocalDateTime orderDate;
+
+        IngestOrder toIngestOrder() {
+            return new IngestOrder(memberId,
+                    lines == null ? List.of() : lines.stream()
+                            .map(line -> new OrderLine(line.getItemId(), line.getCount()))
+                            .toList(),
+                    orderDate);
+        }
+    }
+
+    /**
+     * 주문 전체 export : V6 플랫 조회를 스트리밍으로 읽어서 주문 하나씩 NDJSON 한줄로 바로 응답에 씀
+     * => V1~V6처럼 List를 다 만들고 나서 jackson이 쓰는게 아니라, 만들어지는 대로 흘려보냄
+     */
+    @GetMapping(value = "/api/orders/export", produces = NDJSON)
+    public void exportOrders(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        orderExportService.exportOrders(response.getOutputStream());
+    }
+
     /**
      * 총정리!!
      *
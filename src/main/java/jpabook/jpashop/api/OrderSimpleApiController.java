@@ -3,17 +3,31 @@ package jpabook.jpashop.api;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.simpleQuery.OrderProjectionRepository;
+import jpabook.jpashop.repository.order.simpleQuery.OrderSimpleField;
 import jpabook.jpashop.repository.order.simpleQuery.OrderSimpleQueryDto;
 import jpabook.jpashop.repository.order.simpleQuery.OrderSimpleQueryRepository;
+import jpabook.jpashop.repository.order.simpleQuery.OrderSummaryRepository;
+import jpabook.jpashop.service.OrderSummaryRebuildService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -29,6 +43,9 @@ public class OrderSimpleApiController {
 
     private final OrderRepository orderRepository;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderProjectionRepository orderProjectionRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final OrderSummaryRebuildService orderSummaryRebuildService;
 
     /**
      * 간단한 주문조회 V1 : 엔티티 직접 노출
@@ -122,9 +139,28 @@ public class OrderSimpleApiController {
      * 간단한 주문조회 V4 : JPA에서 바로 DTO로 가져오기
      */
     @GetMapping("/api/v4/simple-orders")
-    public List<OrderSimpleQueryDto> orderV4() {
+    public List<OrderSimpleQueryDto> orderV4(@ModelAttribute OrderSearch orderSearch) {
 //        return  orderRepository.findOrderDto();
-        return orderSimpleQueryRepository.findOrderDto();
+        return orderSimpleQueryRepository.findOrderDto(orderSearch); // memberName, orderStatus 로 검색 (결과 캐시)
+    }
+
+    /**
+     * 간단한 주문조회 V6 : 필요한 필드만 골라서 조회
+     * ?fields=orderId,memberName,address.city (생략하면 전체, address는 address.* 전체)
+     * 고른 컬럼만 select 하고 필요한 join만 붙여서, 엔티티/DTO 없이 Tuple에서 바로 응답을 만듦
+     * => V3처럼 엔티티 전체를 읽지도, V4처럼 고정된 DTO 컬럼을 다 읽지도 않음
+     */
+    @GetMapping("/api/v6/simple-orders")
+    public List<Map<String, Object>> orderV6(@RequestParam(value = "fields", required = false) String fields,
+                                             @ModelAttribute OrderSearch orderSearch,
+                                             @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        Set<OrderSimpleField> selected;
+        try {
+            selected = OrderSimpleField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return orderProjectionRepository.findOrderFields(selected, orderSearch, PageLimits.check(limit));
     }
 
     /**
@@ -137,6 +173,65 @@ public class OrderSimpleApiController {
      * => jpabook.jpashop.repository.order.simpleQuery
      */
 
+    /**
+     * 간단한 주문조회 V5 : 주문 요약 테이블(order_summary)에서 조회
+     * join 없이 테이블 하나를 (order_date, order_id) 인덱스 순서대로 limit 건만 읽음 (키셋 페이징)
+     * 응답의 nextCursor가 null이면 마지막 페이지, limit은 1 ~ 1000 (밖이면 400)
+     */
+    @GetMapping("/api/v5/simple-orders")
+    public SummaryPage orderV5(@RequestParam(value = "after", required = false) String after,
+                               @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        PageLimits.check(limit);
+        OrderCursor cursor = PageLimits.cursor(after);
+        List<OrderSummary> summaries = orderSummaryRepository.findPage(cursor, limit);
+        List<OrderSummaryDto> data = summaries.stream()
+                .map(OrderSummaryDto::new)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (summaries.size() == limit) {
+            OrderSummary last = summaries.get(summaries.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+        return new SummaryPage(data, nextCursor);
+    }
+
+    /**
+     * order_summary 재생성 (기존 주문 채우기 / 다시 맞추기)
+     */
+    @PostMapping("/api/v5/simple-orders/rebuild")
+    public long rebuildOrderSummary() {
+        return orderSummaryRebuildService.rebuild();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class SummaryPage {
+        private List<OrderSummaryDto> data;
+        private String nextCursor;
+    }
+
+    @Data
+    static class OrderSummaryDto {
+        private Long orderId;
+        private String name;
+        private LocalDateTime orderDate;
+        private OrderStatus orderStatus;
+        private Address address;
+        private int itemCount;
+        private int totalPrice;
+
+        public OrderSummaryDto(OrderSummary summary) {
+            this.orderId = summary.getOrderId();
+            this.name = summary.getMemberName();
+            this.orderDate = summary.getOrderDate();
+            this.orderStatus = summary.getStatus();
+            this.address = summary.getAddress();
+            this.itemCount = summary.getItemCount();
+            this.totalPrice = summary.getTotalPrice();
+        }
+    }
+
     /**
      * ### 정리 ###
      * 쿼리 방식 선택 권장 순서
@@ -0,0 +1,40 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.OrderCursor;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 커서 페이징 api의 파라미터 검사 : 잘못된 값은 400
+ *  - limit : 1 ~ MAX 밖이면 (0이면 빈 결과에서 마지막 행을 꺼내다가, 음수면 setMaxResults 에서 터져서 500이 나감)
+ *  - after : 디코딩 안되는 커서 (OrderCursor.decode 의 IllegalArgumentException 이 그대로 나가면 500)
+ */
+final class PageLimits {
+
+    static final int MAX = 1000;
+
+    private PageLimits() {
+    }
+
+    static int check(int limit) {
+        if (limit < 1 || limit > MAX) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit은 1 ~ " + MAX + " 사이여야 합니다.");
+        }
+        return limit;
+    }
+
+    /**
+     * @return 첫 페이지(after 없음)면 null
+     */
+    static OrderCursor cursor(String after) {
+        if (!StringUtils.hasText(after)) {
+            return null;
+        }
+        try {
+            return OrderCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 커서 입니다.", e);
+        }
+    }
+}
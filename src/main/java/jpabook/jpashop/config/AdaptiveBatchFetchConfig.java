@@ -0,0 +1,43 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 연관관계별 batch fetch 크기 자동 조정
+ * jpashop.batch-fetch.adaptive=true 일때만 등록 (끄면 @BatchSize / default_batch_fetch_size 고정 크기)
+ *
+ * 크기 확인 : /actuator/metrics/jpashop.batch_fetch.size?tag=association:Order.orderItem
+ */
+@Configuration
+@EnableConfigurationProperties(BatchFetchProperties.class)
+@ConditionalOnProperty(prefix = "jpashop.batch-fetch", name = "adaptive", havingValue = "true")
+public class AdaptiveBatchFetchConfig {
+
+    @Bean
+    public AdaptiveBatchSizes adaptiveBatchSizes(BatchFetchProperties properties, MeterRegistry meterRegistry) {
+        return new AdaptiveBatchSizes(properties, meterRegistry);
+    }
+
+    /**
+     * 프록시 초기화(LOAD), 컬렉션 초기화(INIT_COLLECTION) 기본 리스너 앞에 등록
+     */
+    @Bean
+    public AdaptiveBatchFetchListener adaptiveBatchFetchListener(EntityManagerFactory entityManagerFactory,
+                                                                 AdaptiveBatchSizes adaptiveBatchSizes) {
+        AdaptiveBatchFetchListener listener = new AdaptiveBatchFetchListener(adaptiveBatchSizes);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.prependListeners(EventType.LOAD, listener);
+        registry.prependListeners(EventType.INIT_COLLECTION, listener);
+        return listener;
+    }
+}
@@ -0,0 +1,135 @@
+package jpabook.jpashop.config;
+
+import org.hibernate.Cache;
+import org.hibernate.FlushMode;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.CollectionEntry;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 지연로딩 batch fetch를 연관관계별 크기(AdaptiveBatchSizes)로
+ *
+ * 하이버네이트 기본 리스너 앞에 붙어서(prepend), 지연로딩이 일어나면
+ *  1. 영속성 컨텍스트에서 같은 연관관계의 초기화 안된 프록시/컬렉션을 셈 (지금 초기화하는 것 포함)
+ *  2. AdaptiveBatchSizes에 대기 수를 알려주고 크기를 받아옴
+ *  3. 지금 것 + 대기중인 것을 그 크기만큼 in 쿼리 한번으로 올림
+ *     - 프록시 : select e from 엔티티 e where e.id in (...)
+ *     - 컬렉션 : select o from 소유엔티티 o left join fetch o.컬렉션 where o.id in (...)
+ *  => 이어서 도는 기본 리스너는 이미 영속성 컨텍스트에 있으므로 쿼리를 안날림
+ *
+ * 대기중인 것이 자기 자신뿐이거나 2차 캐시에 있으면 아무것도 안함 => 기본 리스너(@BatchSize)가 처리
+ * 대기 수를 세느라 영속성 컨텍스트를 한번 훑음 (엔티티 수 x 필드 수) => 지연로딩 한번의 DB 왕복보다 훨씬 쌈
+ */
+public class AdaptiveBatchFetchListener implements LoadEventListener, InitializeCollectionEventListener {
+
+    private final AdaptiveBatchSizes batchSizes;
+
+    public AdaptiveBatchFetchListener(AdaptiveBatchSizes batchSizes) {
+        this.batchSizes = batchSizes;
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        if (loadType != IMMEDIATE_LOAD) {
+            return; // 프록시 초기화만 (em.find, 쿼리 결과 로딩은 그대로)
+        }
+        EventSource session = event.getSession();
+        EntityPersister persister = session.getEntityPersister(event.getEntityClassName(), null);
+        String entityName = persister.getEntityName();
+        Cache cache = session.getFactory().getCache();
+        if (cache.containsEntity(entityName, event.getEntityId())) {
+            return;
+        }
+
+        Set<Object> pending = new LinkedHashSet<>();
+        pending.add(event.getEntityId());
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            for (Object value : entry.getValue().getPersister().getValues(entry.getKey())) {
+                if (value instanceof HibernateProxy proxy) {
+                    LazyInitializer lazy = proxy.getHibernateLazyInitializer();
+                    if (lazy.isUninitialized() && entityName.equals(lazy.getEntityName())
+                            && !cache.containsEntity(entityName, lazy.getIdentifier())) {
+                        pending.add(lazy.getIdentifier());
+                    }
+                }
+            }
+        }
+
+        List<Object> ids = batch(unqualify(entityName), pending);
+        if (ids.size() > 1) {
+            session.createQuery("select e from " + entityName + " e" +
+                            " where e." + persister.getIdentifierPropertyName() + " in :ids", persister.getMappedClass())
+                    .setParameterList("ids", ids)
+                    .setHibernateFlushMode(FlushMode.MANUAL) // 지연로딩 중에 flush가 끼어들지 않도록
+                    .list();
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        PersistentCollection<?> collection = event.getCollection();
+        EventSource session = event.getSession();
+        CollectionEntry trigger = session.getPersistenceContextInternal().getCollectionEntry(collection);
+        if (collection.wasInitialized() || trigger == null || trigger.getLoadedPersister() == null) {
+            return;
+        }
+        CollectionPersister persister = trigger.getLoadedPersister();
+        String role = persister.getRole();
+        Cache cache = session.getFactory().getCache();
+        if (cache.containsCollection(role, trigger.getLoadedKey())) {
+            return;
+        }
+
+        Set<Object> pending = new LinkedHashSet<>();
+        pending.add(trigger.getLoadedKey());
+        session.getPersistenceContextInternal().forEachCollectionEntry((c, entry) -> {
+            if (!c.wasInitialized() && entry.getLoadedPersister() == persister
+                    && !cache.containsCollection(role, entry.getLoadedKey())) {
+                pending.add(entry.getLoadedKey());
+            }
+        }, false);
+
+        EntityPersister owner = persister.getOwnerEntityPersister();
+        String property = role.substring(owner.getEntityName().length() + 1); // role = 소유엔티티 이름.필드
+        List<Object> keys = batch(unqualify(owner.getEntityName()) + "." + property, pending);
+        if (keys.size() > 1) {
+            session.createQuery("select o from " + owner.getEntityName() + " o left join fetch o." + property +
+                            " where o." + owner.getIdentifierPropertyName() + " in :keys", owner.getMappedClass())
+                    .setParameterList("keys", keys)
+                    .setHibernateFlushMode(FlushMode.MANUAL)
+                    .list();
+        }
+    }
+
+    // 대기 수를 알려주고, 크기만큼 앞에서부터 (첫번째가 지금 초기화하는 것)
+    private List<Object> batch(String association, Set<Object> pending) {
+        int size = batchSizes.next(association, pending.size());
+        List<Object> batch = new ArrayList<>(Math.min(size, pending.size()));
+        for (Object key : pending) {
+            if (batch.size() == size) {
+                break;
+            }
+            batch.add(key);
+        }
+        return batch;
+    }
+
+    private static String unqualify(String entityName) {
+        return entityName.substring(entityName.lastIndexOf('.') + 1);
+    }
+}
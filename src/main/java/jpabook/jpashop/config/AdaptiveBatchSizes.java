@@ -0,0 +1,89 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 연관관계별 batch fetch 크기
+ * 지연로딩이 일어날때 같은 연관관계의 프록시/컬렉션이 몇개 대기중이었는지(pending)를 보고 조정함
+ *
+ *  - pending이 지금 크기보다 크면 : 한번에 최대 2배까지만 늘림 (slow start)
+ *    => 처음 보는 큰 burst를 한번에 다 올리지 않고, 반복되면 몇번 만에 따라감
+ *  - 작으면 : decay 비율로 천천히 줄임 => 작은 페이지가 가끔 섞여도 크기가 출렁이지 않음
+ *  - 크기는 2의 제곱수로 올림 (in_clause_parameter_padding 과 같은 단위 => 실행계획 재사용), min ~ max 로 제한
+ *
+ * 메트릭 (association 태그 : Order.orderItem, Item ...)
+ *  - jpashop.batch_fetch.size    : 현재 크기
+ *  - jpashop.batch_fetch.pending : 지연로딩 시점에 대기중이던 수 분포
+ */
+public class AdaptiveBatchSizes {
+
+    private final BatchFetchProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Association> associations = new ConcurrentHashMap<>();
+
+    public AdaptiveBatchSizes(BatchFetchProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 대기 수를 기록하고 이번에 쓸 batch 크기를 돌려줌 (실제로 올릴 수는 min(pending, 크기))
+     */
+    public int next(String association, int pending) {
+        Association stats = associations.computeIfAbsent(association, this::register);
+        stats.pending.record(pending);
+        return stats.observe(pending);
+    }
+
+    /**
+     * 현재 크기 (아직 지연로딩이 없었던 연관관계는 하한)
+     */
+    public int size(String association) {
+        Association stats = associations.get(association);
+        return stats == null ? clamp(properties.getMinSize()) : stats.size;
+    }
+
+    private Association register(String association) {
+        Association stats = new Association(DistributionSummary.builder("jpashop.batch_fetch.pending")
+                .tag("association", association)
+                .register(meterRegistry));
+        // 게이지는 약한 참조 => associations 맵이 stats를 계속 잡고 있음
+        Gauge.builder("jpashop.batch_fetch.size", stats, s -> s.size)
+                .tag("association", association)
+                .register(meterRegistry);
+        return stats;
+    }
+
+    private int clamp(double estimate) {
+        int n = Math.max(1, (int) Math.ceil(estimate));
+        int size = n == 1 ? 1 : Integer.highestOneBit(n - 1) << 1; // 2의 제곱수로 올림
+        return Math.max(properties.getMinSize(), Math.min(properties.getMaxSize(), size));
+    }
+
+    private class Association {
+
+        private final DistributionSummary pending;
+        private double estimate = properties.getMinSize();
+        private volatile int size = clamp(estimate);
+
+        private Association(DistributionSummary pending) {
+            this.pending = pending;
+        }
+
+        private synchronized int observe(int pending) {
+            if (pending > estimate) {
+                estimate = Math.min(pending, estimate * 2);
+            } else {
+                estimate = Math.max(pending, estimate * properties.getDecay());
+            }
+            estimate = Math.min(estimate, properties.getMaxSize()); // 상한에서 붙어있도록 (줄어들때 상한부터 decay)
+            size = clamp(estimate);
+            return size;
+        }
+    }
+}
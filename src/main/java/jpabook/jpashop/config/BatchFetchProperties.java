@@ -0,0 +1,25 @@
+package jpabook.jpashop.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 지연로딩 batch fetch 크기 설정 (jpashop.batch-fetch.*)
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "jpashop.batch-fetch")
+public class BatchFetchProperties {
+
+    /** 연관관계별로 batch 크기 자동 조정 (false면 @BatchSize / default_batch_fetch_size 그대로) */
+    private boolean adaptive = false;
+
+    /** batch 크기 하한 (2의 제곱수로 올림) */
+    private int minSize = 16;
+
+    /** batch 크기 상한 => 지연로딩 한번에 올리는 엔티티/컬렉션 수, 메모리 burst 제한 */
+    private int maxSize = 1024;
+
+    /** 대기 수가 현재 크기보다 작을때 크기를 줄이는 비율 (1에 가까울수록 천천히 줄어듦) */
+    private double decay = 0.9;
+}
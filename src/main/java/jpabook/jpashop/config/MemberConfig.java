@@ -0,0 +1,21 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.service.MemberNameFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(MemberProperties.class)
+public class MemberConfig {
+
+    /**
+     * 회원가입 중복검사용 이름 Bloom filter (채우는건 MemberNameFilterLoader)
+     */
+    @Bean
+    public MemberNameFilter memberNameFilter(MemberProperties properties, MeterRegistry meterRegistry) {
+        MemberProperties.NameFilter nameFilter = properties.getNameFilter();
+        return new MemberNameFilter(nameFilter.getExpectedNames(), nameFilter.getFalsePositiveRate(), meterRegistry);
+    }
+}
@@ -0,0 +1,25 @@
+package jpabook.jpashop.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 회원 설정 (jpashop.member.*)
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "jpashop.member")
+public class MemberProperties {
+
+    private NameFilter nameFilter = new NameFilter();
+
+    @Getter @Setter
+    public static class NameFilter {
+        /** 예상 회원 수 (넘어가면 오탐률이 올라감, 메모리 = 약 1.2MB / 100만명 @1%) */
+        private long expectedNames = 1_000_000;
+        /** 목표 오탐률 */
+        private double falsePositiveRate = 0.01;
+        /** 기동 시 이름을 읽어오는 단위 */
+        private int loadChunkSize = 10_000;
+    }
+}
@@ -0,0 +1,50 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.service.OrderChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 주문 조회 DTO 결과 캐시 (Caffeine, spring.cache.*)
+ *  - orderQueryDtos  : OrderQueryRepository.findAllByDto_optimiztion (V5)
+ *  - orderSimpleDtos : OrderSimpleQueryRepository.findOrderDto (V4 simple, 검색조건별)
+ *  - orderSearchCounts : OrderRepository.countAll2 (주문 검색 전체 건수, 검색조건별)
+ *
+ * 결과는 주문이 생성/취소될 때만 바뀜 => OrderChangedEvent를 받아서 커밋된 뒤 전체 무효화
+ * (롤백된 주문은 이벤트가 전달되지 않으므로 캐시를 버리지 않음)
+ *
+ * 메트릭 : cache.gets{result=hit|miss}, cache.puts, cache.evictions (actuator 자동 등록)
+ *         jpashop.cache.invalidations (이벤트로 무효화한 횟수)
+ */
+@Slf4j
+@Configuration
+@EnableCaching
+@RequiredArgsConstructor
+public class OrderQueryCacheConfig {
+
+    public static final String ORDER_QUERY_DTOS = "orderQueryDtos";
+    public static final String ORDER_SIMPLE_DTOS = "orderSimpleDtos";
+    public static final String ORDER_SEARCH_COUNTS = "orderSearchCounts";
+
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+
+    // 트랜잭션 밖에서 발행된 경우(fallbackExecution)에도 무효화
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        for (String name : new String[]{ORDER_QUERY_DTOS, ORDER_SIMPLE_DTOS, ORDER_SEARCH_COUNTS}) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.invalidate();
+                meterRegistry.counter("jpashop.cache.invalidations", "cache", name).increment();
+            }
+        }
+        log.debug("주문 조회 캐시 무효화 : {}", event);
+    }
+}
@@ -0,0 +1,74 @@
+package jpabook.jpashop.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 요청 하나 동안 실행된 SQL 집계
+ *  - SQL 모양(바인딩 전, ? 가 들어간 prepared sql)별 실행 횟수 => 같은 모양이 여러번 나가면 N+1
+ *  - 호출한 위치(repository 메서드, 없으면 지연로딩을 일으킨 코드)별 실행 횟수
+ *
+ * 요청 스레드의 ThreadLocal에 붙여서 사용 (요청 스레드 하나에서만 접근하므로 동기화 x)
+ */
+public class QueryCounter {
+
+    private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> countBySql = new HashMap<>();
+    private final Map<String, Integer> countByCaller = new HashMap<>();
+    private final Map<String, String> callerBySql = new HashMap<>();
+    private int total;
+
+    public static QueryCounter start() {
+        QueryCounter counter = new QueryCounter();
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    public static QueryCounter current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public void record(String sql, String caller) {
+        String shape = normalize(sql);
+        total++;
+        countBySql.merge(shape, 1, Integer::sum);
+        countByCaller.merge(caller, 1, Integer::sum);
+        callerBySql.putIfAbsent(shape, caller);
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMaxRepeat() {
+        return countBySql.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    public Map<String, Integer> getCountByCaller() {
+        return countByCaller;
+    }
+
+    /**
+     * threshold 보다 많이 실행된 SQL 모양들
+     */
+    public List<Repeated> findRepeated(int threshold) {
+        return countBySql.entrySet().stream()
+                .filter(e -> e.getValue() > threshold)
+                .map(e -> new Repeated(e.getKey(), callerBySql.get(e.getKey()), e.getValue()))
+                .toList();
+    }
+
+    // 줄바꿈/공백 차이로 다른 SQL로 세지 않도록
+    private static String normalize(String sql) {
+        return sql == null ? "" : sql.replaceAll("\\s+", " ").trim();
+    }
+
+    public record Repeated(String sql, String caller, int count) {
+    }
+}
@@ -0,0 +1,31 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 요청당 SQL 집계 / N+1 감지
+ * jpashop.query-counter.enabled=true 일때만 등록
+ */
+@Configuration
+@EnableConfigurationProperties(QueryCounterProperties.class)
+@ConditionalOnProperty(prefix = "jpashop.query-counter", name = "enabled", havingValue = "true")
+public class QueryCounterConfig {
+
+    @Bean
+    public QueryCounterListener queryCounterListener() {
+        return new QueryCounterListener();
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryCounterFilter> queryCounterFilter(QueryCounterProperties properties, MeterRegistry meterRegistry) {
+        FilterRegistrationBean<QueryCounterFilter> registration =
+                new FilterRegistrationBean<>(new QueryCounterFilter(properties, meterRegistry));
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
@@ -0,0 +1,153 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jpabook.jpashop.exception.RepeatedQueryException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 요청마다 QueryCounter를 열고, 요청이 끝나면 N+1 의심 SQL을 검사
+ *  - 경고 로그 + 메트릭(jpashop.query.repeated) 은 항상
+ *  - failOnRepeat : 예외로 요청 실패 (테스트/개발에서 N+1 회귀를 바로 잡기 위함)
+ *  - exposeHeaders : X-Query-Count, X-Query-Max-Repeat, X-Query-Callers 헤더
+ *
+ * 헤더/예외는 응답 바디를 다 쓰고 난 뒤에 결정되므로(지연로딩은 jackson 직렬화 중에도 일어남),
+ * 그 경우엔 응답을 버퍼링 했다가 마지막에 내보냄 => 운영에선 끄고 debug 프로필에서만 사용
+ * 단, 스트리밍 응답(NDJSON export, SSE)과 비동기 요청은 버퍼링하면 전체가 메모리에 쌓이므로
+ * 버퍼링을 멈추고 그대로 흘려보냄 => 헤더/예외 없이 로그와 메트릭만
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class QueryCounterFilter extends OncePerRequestFilter {
+
+    private static final int MAX_CALLERS_IN_HEADER = 5;
+
+    private final QueryCounterProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean buffered = properties.isExposeHeaders() || properties.isFailOnRepeat();
+        StreamingAwareResponseWrapper wrapper = buffered ? new StreamingAwareResponseWrapper(response) : null;
+
+        QueryCounter counter = QueryCounter.start();
+        try {
+            filterChain.doFilter(request, buffered ? wrapper : response);
+        } finally {
+            QueryCounter.clear();
+        }
+        if (buffered && request.isAsyncStarted()) {
+            wrapper.stopBuffering(); // 나머지 응답은 다른 스레드에서 나중에 써짐
+        }
+
+        meterRegistry.summary("jpashop.query.per_request").record(counter.getTotal());
+        List<QueryCounter.Repeated> repeated = counter.findRepeated(properties.getRepeatThreshold());
+        for (QueryCounter.Repeated r : repeated) {
+            log.warn("N+1 의심 : {} {} => {}회 [{}] {}", request.getMethod(), request.getRequestURI(), r.count(), r.caller(), r.sql());
+            meterRegistry.counter("jpashop.query.repeated", "caller", r.caller()).increment();
+        }
+
+        if (!buffered) {
+            return;
+        }
+        if (wrapper.isStreaming()) {
+            if (!repeated.isEmpty() && properties.isFailOnRepeat()) {
+                log.warn("스트리밍 응답은 이미 내보내는 중이라 실패로 바꾸지 않음 : {}", request.getRequestURI());
+            }
+            wrapper.copyBodyToResponse(); // 버퍼는 이미 비어있음
+            return;
+        }
+        if (!repeated.isEmpty() && properties.isFailOnRepeat()) {
+            wrapper.resetBuffer();
+            throw new RepeatedQueryException(request.getRequestURI() + " 에서 같은 SQL이 "
+                    + repeated.get(0).count() + "회 실행됨 [" + repeated.get(0).caller() + "]");
+        }
+        if (properties.isExposeHeaders()) {
+            wrapper.setHeader("X-Query-Count", String.valueOf(counter.getTotal()));
+            wrapper.setHeader("X-Query-Max-Repeat", String.valueOf(counter.getMaxRepeat()));
+            wrapper.setHeader("X-Query-Callers", toHeader(counter.getCountByCaller()));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * content type이 스트리밍(NDJSON, SSE)으로 정해지거나 비동기로 넘어가는 순간 버퍼링을 멈추고
+     * 그 뒤로는 원래 응답에 바로 씀 (그 전에 버퍼에 쓴 내용이 있으면 먼저 내보냄)
+     */
+    static class StreamingAwareResponseWrapper extends ContentCachingResponseWrapper {
+
+        private static final List<String> STREAMING_TYPES = List.of("application/x-ndjson", "text/event-stream");
+
+        private boolean streaming;
+
+        StreamingAwareResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        boolean isStreaming() {
+            return streaming;
+        }
+
+        void stopBuffering() throws IOException {
+            if (!streaming) {
+                streaming = true;
+                copyBodyToResponse(false);
+            }
+        }
+
+        @Override
+        public void setContentType(String type) {
+            super.setContentType(type);
+            if (type != null && STREAMING_TYPES.stream().anyMatch(type.toLowerCase()::startsWith)) {
+                try {
+                    stopBuffering();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            return streaming ? getResponse().getOutputStream() : super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            return streaming ? getResponse().getWriter() : super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (streaming) {
+                getResponse().flushBuffer();
+            } else {
+                super.flushBuffer();
+            }
+        }
+    }
+
+    // 많이 호출한 순으로 상위 몇개만 : "OrderRepository.findAllByString=1;SimpleOrderDto.<init>=4"
+    private static String toHeader(Map<String, Integer> countByCaller) {
+        return countByCaller.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(MAX_CALLERS_IN_HEADER)
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(";"));
+    }
+}
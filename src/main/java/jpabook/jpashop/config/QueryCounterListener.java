@@ -0,0 +1,52 @@
+package jpabook.jpashop.config;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * p6spy가 감싼 JDBC 실행 이벤트를 받아 현재 요청의 QueryCounter에 기록
+ * (p6spy-spring-boot-starter는 JdbcEventListener 빈을 자동으로 등록해줌)
+ *
+ * 호출 위치는 스택에서 찾음
+ *  1. repository 패키지 프레임이 있으면 그 메서드 (ex: OrderRepository.findAllByString)
+ *  2. 없으면 가장 안쪽의 애플리케이션 프레임 => 지연로딩을 일으킨 코드 (ex: SimpleOrderDto.<init>)
+ */
+public class QueryCounterListener extends JdbcEventListener {
+
+    private static final String BASE_PACKAGE = "jpabook.jpashop.";
+    private static final String REPOSITORY_PACKAGE = "jpabook.jpashop.repository.";
+    private static final String CONFIG_PACKAGE = "jpabook.jpashop.config.";
+    private static final int MAX_APP_FRAMES = 20;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryCounter counter = QueryCounter.current();
+        if (counter == null) {
+            return; // 요청 밖(스케줄러, 초기화 등)에서 나간 쿼리는 집계하지 않음
+        }
+        counter.record(statementInformation.getSql(), findCaller());
+    }
+
+    private static String findCaller() {
+        List<StackWalker.StackFrame> appFrames = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(BASE_PACKAGE) && !f.getClassName().startsWith(CONFIG_PACKAGE))
+                .limit(MAX_APP_FRAMES)
+                .toList());
+
+        return appFrames.stream()
+                .filter(f -> f.getClassName().startsWith(REPOSITORY_PACKAGE))
+                .findFirst()
+                .or(() -> appFrames.stream().findFirst())
+                .map(f -> simpleName(f.getClassName()) + "." + f.getMethodName())
+                .orElse("unknown");
+    }
+
+    private static String simpleName(String className) {
+        String name = className.substring(className.lastIndexOf('.') + 1);
+        int proxy = name.indexOf("$$"); // CGLIB 프록시 접미사 제거
+        return proxy < 0 ? name : name.substring(0, proxy);
+    }
+}
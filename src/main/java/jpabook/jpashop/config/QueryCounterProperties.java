@@ -0,0 +1,24 @@
+package jpabook.jpashop.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 요청당 SQL 실행 수 집계 설정 (jpashop.query-counter.*)
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "jpashop.query-counter")
+public class QueryCounterProperties {
+
+    private boolean enabled = false;
+
+    /** 한 요청에서 같은 모양의 SQL이 이 횟수를 넘으면 N+1 의심 */
+    private int repeatThreshold = 10;
+
+    /** N+1 의심 시 예외로 요청을 실패시킬지 (개발/테스트용) */
+    private boolean failOnRepeat = false;
+
+    /** X-Query-* 응답 헤더로 집계 결과 노출 (debug 프로필) */
+    private boolean exposeHeaders = false;
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 조회 쿼리 병렬 실행용 executor
+ *
+ * spring.threads.virtual.enabled=true (vthreads 프로필, JDK 21 이상)
+ *  - 톰캣 요청 스레드, @Transactional 서비스 모두 가상 스레드에서 실행됨
+ *    => JDBC 대기 중에는 캐리어 스레드를 놓아주므로 동시 요청 수가 톰캣 스레드 풀 크기(200)에 묶이지 않음
+ *  - 조회 쿼리도 가상 스레드로, 대신 동시 실행 수는 maxConcurrency로 제한 (실제 상한은 커넥션 풀)
+ * 그 외 (JDK 17 포함) : maxConcurrency 크기의 플랫폼 스레드 풀
+ *
+ * Executor 타입 빈이 아니라 QueryExecutor로 감싸서 등록 (applicationTaskExecutor가 그대로 만들어지도록)
+ */
+@Configuration
+@EnableConfigurationProperties(QueryExecutionProperties.class)
+public class QueryExecutionConfig {
+
+    @Bean
+    public QueryExecutor queryExecutor(Environment environment, QueryExecutionProperties properties) {
+        return new QueryExecutor(createExecutor(environment, properties));
+    }
+
+    private static AsyncTaskExecutor createExecutor(Environment environment, QueryExecutionProperties properties) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("query-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(properties.getMaxConcurrency()); // 넘으면 제출한 스레드가 대기
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("query-");
+        executor.setCorePoolSize(properties.getMaxConcurrency());
+        executor.setMaxPoolSize(properties.getMaxConcurrency());
+        executor.initialize();
+        return executor;
+    }
+}
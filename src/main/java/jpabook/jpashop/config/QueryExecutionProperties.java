@@ -0,0 +1,33 @@
+package jpabook.jpashop.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * 조회 쿼리 병렬 실행 설정 (jpashop.query.*)
+ */
+@Getter @Setter
+@Validated
+@ConfigurationProperties(prefix = "jpashop.query")
+public class QueryExecutionProperties {
+
+    /**
+     * 트랜잭션 밖에서 호출된 조회는 서로 독립적인 쿼리를 각각 다른 커넥션으로 동시에 실행
+     * (쿼리마다 스냅샷이 달라지므로 읽기 일관성이 필요없는 목록 조회에만)
+     */
+    private boolean parallelFanOut = false;
+
+    /** 동시에 실행할 조회 쿼리 수 상한 (커넥션 풀 크기보다 작게) */
+    private int maxConcurrency = 8;
+
+    /**
+     * in 절에 넣을 id 개수 단위 (2의 제곱수)
+     * hibernate.query.in_clause_parameter_padding 과 같이 쓰면 in 절 SQL 모양이 chunk 크기 이하의 2의 제곱수로만 고정됨
+     * (0 이하면 chunk가 나눠지지 않아 무한루프 => 기동 시 거부)
+     */
+    @Min(1)
+    private int inChunkSize = 1024;
+}
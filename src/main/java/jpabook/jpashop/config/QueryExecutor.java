@@ -0,0 +1,34 @@
+package jpabook.jpashop.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+/**
+ * 조회 쿼리 병렬 실행용 executor 홀더
+ *
+ * AsyncTaskExecutor를 그대로 빈으로 등록하면 Executor 타입 빈이 생기면서
+ * 부트의 applicationTaskExecutor(@ConditionalOnMissingBean(Executor.class))가 만들어지지 않음
+ * => MVC 비동기 / @Async 가 조용히 다른 executor로 넘어감
+ * => Executor가 아닌 타입으로 감싸서 등록하고, 종료도 여기서 직접
+ */
+public final class QueryExecutor implements DisposableBean {
+
+    private final AsyncTaskExecutor executor;
+
+    QueryExecutor(AsyncTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    public AsyncTaskExecutor executor() {
+        return executor;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (executor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        } else if (executor instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package jpabook.jpashop.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.service.StockReservationEngine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(StockProperties.class)
+public class StockConfig {
+
+    private static final String DECREASE_STOCK_SQL = "update item set stock_quantity = stock_quantity - ?, version = version + 1 where item_id = ?";
+
+    /**
+     * 재고 예약 엔진
+     *  - 최초 재고는 Item 엔티티에서 읽어옴
+     *  - 차감분 반영은 JDBC batch update 한번으로 (주문 트랜잭션과 별개의 트랜잭션)
+     *  - 애플리케이션 종료 시 남은 차감분 반영
+     *  - JDBC로 직접 바꾸므로 하이버네이트가 모름 => 커밋 후 해당 상품의 2차 캐시를 직접 무효화
+     */
+    @Bean(destroyMethod = "flush")
+    public StockReservationEngine stockReservationEngine(StockProperties properties, ItemRepository itemRepository,
+                                                         JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                                         EntityManagerFactory entityManagerFactory) {
+        TransactionTemplate readTx = new TransactionTemplate(transactionManager);
+        TransactionTemplate writeTx = new TransactionTemplate(transactionManager);
+        // 커밋/롤백 이후 콜백에서도 불리기 때문에 항상 새 트랜잭션으로
+        writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        StockProperties.Reservation reservation = properties.getReservation();
+        return new StockReservationEngine(reservation.isEnabled(), reservation.getStripes(),
+                itemId -> readTx.execute(status -> {
+                    Item item = itemRepository.findOne(itemId);
+                    return item == null ? null : item.getStockQuantity();
+                }),
+                deltas -> {
+                    writeTx.executeWithoutResult(status -> {
+                        List<Object[]> args = new ArrayList<>();
+                        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+                            args.add(new Object[]{delta.getValue(), delta.getKey()});
+                        }
+                        jdbcTemplate.batchUpdate(DECREASE_STOCK_SQL, args);
+                    });
+                    // 커밋된 뒤에 무효화 (커밋 전에 버리면 그 사이 다른 세션이 옛 재고를 다시 캐시에 올림)
+                    deltas.keySet().forEach(itemId -> entityManagerFactory.getCache().evict(Item.class, itemId));
+                });
+    }
+}
@@ -0,0 +1,37 @@
+package jpabook.jpashop.config;
+
+import jpabook.jpashop.service.StockConcurrencyMode;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 재고 처리 설정 (jpashop.stock.*)
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "jpashop.stock")
+public class StockProperties {
+
+    private Reservation reservation = new Reservation();
+    private Concurrency concurrency = new Concurrency();
+
+    @Getter @Setter
+    public static class Reservation {
+        /** 메모리 재고 예약 엔진 사용 여부 (flash sale 처럼 한 상품에 주문이 몰릴때) */
+        private boolean enabled = false;
+        /** 예약된 차감분을 DB에 모아서 반영하는 주기 */
+        private long flushIntervalMs = 200;
+        /** 락 스트라이프 수 (2의 제곱수) */
+        private int stripes = 64;
+    }
+
+    @Getter @Setter
+    public static class Concurrency {
+        /** 재고 차감 동시성 제어 방식 (예약 엔진을 켜면 엔진이 우선) */
+        private StockConcurrencyMode mode = StockConcurrencyMode.OPTIMISTIC;
+        /** 낙관적 락 충돌 시 주문 재시도 횟수 */
+        private int maxRetries = 3;
+        /** 재시도 전 대기 시간 (시도할수록 늘어나고, 같은 순간 재충돌하지 않게 랜덤) */
+        private long backoffMs = 5;
+    }
+}
@@ -0,0 +1,27 @@
+package jpabook.jpashop.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 기동 warm-up (QueryWarmupRunner) + 끝날때까지 요청 막기
+ * jpashop.warmup.enabled=true 일때만 등록
+ */
+@Configuration
+@EnableConfigurationProperties(WarmupProperties.class)
+@ConditionalOnProperty(prefix = "jpashop.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupConfig {
+
+    @Bean
+    public FilterRegistrationBean<WarmupGateFilter> warmupGateFilter(ApplicationAvailability applicationAvailability) {
+        FilterRegistrationBean<WarmupGateFilter> registration =
+                new FilterRegistrationBean<>(new WarmupGateFilter(applicationAvailability));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Integer.MIN_VALUE); // 다른 필터(쿼리 집계 등)보다 먼저
+        return registration;
+    }
+}
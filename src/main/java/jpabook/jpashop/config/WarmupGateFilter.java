@@ -0,0 +1,38 @@
+package jpabook.jpashop.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * readiness 게이트 : 톰캣은 ApplicationRunner(warm-up)보다 먼저 포트를 열기 때문에,
+ * readiness가 ACCEPTING_TRAFFIC이 되기 전(= warm-up 중) 들어온 요청은 503 + Retry-After로 돌려보냄
+ * 로드밸런서/쿠버네티스는 /actuator/health/readiness 를 보고 트래픽을 보내므로 actuator는 통과
+ */
+@RequiredArgsConstructor
+public class WarmupGateFilter extends OncePerRequestFilter {
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final ApplicationAvailability applicationAvailability;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (applicationAvailability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC
+                && !request.getRequestURI().startsWith("/actuator")) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "warming up");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
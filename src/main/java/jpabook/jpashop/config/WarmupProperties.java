@@ -0,0 +1,19 @@
+package jpabook.jpashop.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 기동 시 조회 경로 warm-up 설정 (jpashop.warmup.*)
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "jpashop.warmup")
+public class WarmupProperties {
+
+    /** InitDb 이후 조회 경로를 미리 실행, 끝날때까지 readiness = REFUSING_TRAFFIC */
+    private boolean enabled = true;
+
+    /** 경로마다 반복 실행 횟수 (JIT 컴파일 유도), 검색조건 조합은 계획 캐시용으로 1번씩만 */
+    private int iterations = 20;
+}
@@ -72,6 +72,7 @@ public class ItemController {
         book.setAuthor(form.getAuthor());
         book.setPrice(form.getPrice());
         book.setIsbn(form.getIsbn());
+        book.setStockQuantity(form.getStockQuantity());
 
         /* 준영속 엔티티 : DB에 한번 저장되어 식별자가 존재하는 엔티티
             new로 생성했지만, 식별자가 존재함! 그러나 엔티티매니저가 관리하진 않음
@@ -79,7 +80,8 @@ public class ItemController {
             1. 변경감지
             2. 병합(merge)
         */
-        itemService.saveItem(book);
+        // Item에 @Version이 생겨서 버전 없는 준영속 엔티티를 merge 하면 안됨 => 변경감지로 수정
+        itemService.updateItem(itemId, book);
         /* 어설프게 Controller에서 Entity를 생성하지 말자!
         예제에선 BookForm을 웹계층에서만 쓰기로 정의 했기 떄문에 `new Book()`을 해서 넘겼지만,
         아래가 더 나은 코드!, 업데이트할 데이터가 많다! 싶으면 서비스계층에 DTO를 하나 만들어라
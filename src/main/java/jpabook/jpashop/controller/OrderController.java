@@ -6,8 +6,12 @@ import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.service.ItemService;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderFacade;
 import jpabook.jpashop.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +23,7 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderFacade orderFacade; // 재고 충돌 재시도
     private final MemberService memberService;
     private final ItemService itemService;
 
@@ -40,20 +45,22 @@ public class OrderController {
         // 바깥(컨트롤러)에서 엔티티를 찾아서 서비스로 넘겨도 되지만,
         // 안(서비스)에서 찾으면, 엔티티들이 영속상태로 흘러가기 떄문에, 할수있는게 더 많아짐.
         // 식별자만 넘기는거 추천!(조회요청은 어디서 하든 상관없음)
-        orderService.order(memberId, itemId, count);
+        orderFacade.order(memberId, itemId, count);
         return "redirect:/orders";
     }
 
     @GetMapping("/orders")
-    public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch, Model model){
-        List<Order> orders = orderService.findOrders(orderSearch);
-        model.addAttribute("orders", orders);
+    public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch,
+                            @PageableDefault(size = 20) Pageable pageable, Model model){
+        Slice<Order> page = orderService.searchOrders(orderSearch, pageable);
+        model.addAttribute("orders", page.getContent());
+        model.addAttribute("page", page);
         return "/orders/orderList";
     }
 
     @PostMapping("/orders/{orderId}/cancle")
     public String cancel(@PathVariable("orderId") Long orderId){
-        orderService.cancelOrder(orderId);
+        orderFacade.cancelOrder(orderId);
         return "redirect:/orders";
     }
 }
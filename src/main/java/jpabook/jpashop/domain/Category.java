@@ -2,13 +2,22 @@ package jpabook.jpashop.domain;
 
 import jakarta.persistence.*;
 import jpabook.jpashop.domain.item.Item;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Item.categories 컬렉션 캐시가 id로 꺼내오므로 엔티티도 캐시
 @Getter @Setter
 public class Category {
     @Id @GeneratedValue
@@ -26,10 +35,12 @@ public class Category {
         => @JoinTable로 중간테이블 로 매핑 생성
         => 실전에서 사용하지 않는 이유는, 중간테이블 기본형태(단순매핑) 외에, 다른 필드를 추가하거나 할 수 없음.
     */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany
     @JoinTable(name ="category_item",
             joinColumns = @JoinColumn(name ="category_id"), // 중간테이블(category_item)에 있는 category_id 컬럼
-            inverseJoinColumns = @JoinColumn(name="item_id") //item에 해당하는 id 맵핑
+            inverseJoinColumns = @JoinColumn(name="item_id"), //item에 해당하는 id 맵핑
+            indexes = @Index(name = "idx_category_item_category", columnList = "category_id, item_id") // 서브트리 상품 조회 시 closure -> category_item 조인
     )
     private List<Item> items = new ArrayList<>();
 
@@ -43,10 +54,84 @@ public class Category {
     @OneToMany(mappedBy="parent")   // 맵핑된 필드명(객체)
     private List<Category> child = new ArrayList<>();
 
+    // 조상 경로 : closure table에서 자손이 나인 행들 (자기 자신 거리 0 포함), addChildCategory 에서 같이 관리
+    @Setter(AccessLevel.NONE)
+    @OneToMany(mappedBy = "descendant", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<CategoryClosure> ancestors = new ArrayList<>();
+
     //== 연관관계 메서드 ==//
+    /**
+     * 자기 자신이나 자기 조상을 자식으로 넣으면 parent가 순환 => linkAncestors 가 끝없이 재귀하므로 거부
+     */
     public void addChildCategory(Category category) {
+        for (Category p = this; p != null; p = p.getParent()) {
+            if (key(p).equals(key(category))) {
+                throw new IllegalArgumentException("자기 서브트리 밑으로는 옮길 수 없습니다.");
+            }
+        }
+        if (category.getParent() != null) {
+            category.getParent().getChild().remove(category); // 다른 카테고리 밑에 있던 서브트리를 옮기는 경우
+        }
         child.add(category);
         category.setParent(this);
+        category.linkAncestors();
+    }
+
+    /**
+     * 서브트리 전체의 조상 경로를 (부모의 경로 + 1) + 자기 자신으로 다시 맞춤
+     * 새 카테고리는 자식이 없으므로 자기 경로만, 서브트리를 옮긴 경우에만 자손까지 내려감
+     * 이미 있는 행은 거리만 고치고 지우지 않음 (같은 PK를 지우고 다시 넣으면 insert가 delete보다 먼저 나가서 PK 충돌)
+     * 프록시로도 불리므로 private 이 아닌 메서드로 (private 메서드는 프록시가 위임하지 않음)
+     */
+    void linkAncestors() {
+        Map<Object, Category> ancestorByKey = new LinkedHashMap<>();
+        Map<Object, Integer> depthByKey = new HashMap<>();
+        if (parent != null) {
+            for (CategoryClosure closure : parent.path()) {
+                Object key = key(closure.getAncestor());
+                ancestorByKey.put(key, closure.getAncestor());
+                depthByKey.put(key, closure.getDepth() + 1);
+            }
+        }
+        ancestorByKey.put(key(this), this);
+        depthByKey.put(key(this), 0);
+
+        Iterator<CategoryClosure> existing = ancestors.iterator();
+        while (existing.hasNext()) {
+            CategoryClosure closure = existing.next();
+            Object key = key(closure.getAncestor());
+            Integer depth = depthByKey.get(key);
+            if (depth == null) {
+                existing.remove(); // 옮기기 전 조상 => orphanRemoval 로 delete
+            } else {
+                closure.changeDepth(depth);
+                ancestorByKey.remove(key);
+            }
+        }
+        ancestorByKey.forEach((key, ancestor) -> ancestors.add(new CategoryClosure(ancestor, this, depthByKey.get(key))));
+
+        child.forEach(Category::linkAncestors);
+    }
+
+    /**
+     * 조상 경로 (자기 자신 행이 없으면 만들어서)
+     */
+    List<CategoryClosure> path() {
+        if (ancestors.stream().noneMatch(closure -> closure.getDepth() == 0)) {
+            ancestors.add(new CategoryClosure(this, this, 0));
+        }
+        return ancestors;
+    }
+
+    // 자식 없이 저장되는 최상위 카테고리도 자기 자신 행은 있어야 서브트리 조회에 나옴
+    @PrePersist
+    void prePersist() {
+        path();
+    }
+
+    // 저장 전이면 인스턴스, 저장 후면 id (조회해 온 closure의 조상은 프록시일 수 있으므로)
+    private static Object key(Category category) {
+        return category.getId() != null ? category.getId() : category;
     }
 
 }
@@ -0,0 +1,62 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 카테고리 계층 closure table
+ *
+ * parent/child 연관관계만으로는 서브트리를 구하려면 단계마다 지연로딩 => 깊이 x 노드 수 만큼 쿼리
+ * => (조상, 자손, 거리)를 모든 조상-자손 쌍마다 한 행씩 저장 (자기 자신도 거리 0으로)
+ *  ex) 도서 > IT > JPA
+ *      (도서,도서,0) (도서,IT,1) (도서,JPA,2) (IT,IT,0) (IT,JPA,1) (JPA,JPA,0)
+ *  - 서브트리   : where ancestor_id = ?     (PK 인덱스)
+ *  - 조상 경로  : where descendant_id = ?   (idx_category_closure_descendant)
+ *
+ * Category.addChildCategory 에서 같이 관리 (Category.ancestors, cascade)
+ */
+@Entity
+@Table(name = "category_closure",
+        indexes = @Index(name = "idx_category_closure_descendant", columnList = "descendant_id, depth"))
+@IdClass(CategoryClosure.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CategoryClosure {
+
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ancestor_id")
+    private Category ancestor;
+
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "descendant_id")
+    private Category descendant;
+
+    private int depth;
+
+    CategoryClosure(Category ancestor, Category descendant, int depth) {
+        this.ancestor = ancestor;
+        this.descendant = descendant;
+        this.depth = depth;
+    }
+
+    // 서브트리를 옮기면 조상까지의 거리가 바뀜
+    void changeDepth(int depth) {
+        this.depth = depth;
+    }
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long ancestor;
+        private Long descendant;
+    }
+}
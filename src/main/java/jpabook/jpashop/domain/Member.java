@@ -4,14 +4,22 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// 회원이름 중복 방지 (동시 가입 최종 방어) + unique 인덱스가 주문검색 회원이름 like '이름%' 인덱스 역할도 함
+@Table(uniqueConstraints = @UniqueConstraint(name = Member.UK_NAME, columnNames = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 주문할때마다 id로 조회 => 2차 캐시
 @Getter @Setter
 public class Member {
 
+    public static final String UK_NAME = "uk_member_name";
+
     @Id @GeneratedValue
     @Column(name = "member_id")
     private Long id;
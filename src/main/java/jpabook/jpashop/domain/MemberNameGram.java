@@ -0,0 +1,82 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 회원 이름 n-gram(trigram) 색인
+ *
+ * like '%이름%' 은 앞이 %라서 member(name) 인덱스를 못타고 회원 전체를 스캔함
+ * => 이름을 3글자 조각으로 잘라 (gram, member_id) PK 인덱스에 넣어두고,
+ *    검색어의 조각을 모두 가진 회원만 후보로 뽑은 뒤 실제 like로 한번 더 거름
+ *
+ * 조각 : 모든 위치 i의 substring(i, i+3) => 끝에서는 2글자, 1글자 조각이 됨
+ *  ex) "userA" => use, ser, erA, rA, A
+ *  => 3글자 미만 검색어도 "조각이 검색어로 시작하는" 회원으로 찾을 수 있음
+ *
+ * MemberService.join / update 에서 같이 저장 (MemberNameGramRepository)
+ */
+@Entity
+@Table(name = "member_name_gram",
+        indexes = @Index(name = "idx_member_name_gram_member", columnList = "member_id")) // 이름 변경 시 삭제용
+@IdClass(MemberNameGram.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberNameGram {
+
+    public static final int GRAM_SIZE = 3;
+
+    @Id
+    @Column(length = GRAM_SIZE)
+    private String gram;
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    public MemberNameGram(String gram, Long memberId) {
+        this.gram = gram;
+        this.memberId = memberId;
+    }
+
+    /**
+     * 이름을 저장할 조각 (모든 위치에서 최대 3글자)
+     */
+    public static Set<String> grams(String name) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (name == null) {
+            return grams;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            grams.add(name.substring(i, Math.min(i + GRAM_SIZE, name.length())));
+        }
+        return grams;
+    }
+
+    /**
+     * 검색어로 찾을 조각 (3글자 미만 검색어는 빈 Set => 접두어로 찾아야 함)
+     */
+    public static Set<String> searchGrams(String keyword) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= keyword.length(); i++) {
+            grams.add(keyword.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String gram;
+        private Long memberId;
+    }
+}
@@ -12,7 +12,26 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name="orders")   // order by 절 때문에, 관례로 orders 사용
+@Table(name="orders",   // order by 절 때문에, 관례로 orders 사용
+        indexes = {
+                @Index(name = "idx_orders_order_date_id", columnList = "order_date, order_id"), // 키셋 페이징 정렬키
+                // 주문검색 : 상태(=) + 주문일시(범위/정렬) 순서, member_id까지 있으면 회원 join 전에 인덱스만으로 거름
+                @Index(name = "idx_orders_status_order_date_member", columnList = "status, order_date, member_id")
+        })
+@NamedEntityGraphs({ // 조회 fetch plan (OrderFetchPlan)
+        @NamedEntityGraph(name = "Order.summary", attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode("delivery")}),
+        @NamedEntityGraph(name = "Order.withItems", attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode(value = "orderItem", subgraph = "orderItem.item")},
+                subgraphs = @NamedSubgraph(name = "orderItem.item", attributeNodes = @NamedAttributeNode("item"))),
+        @NamedEntityGraph(name = "Order.full", attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode("delivery"),
+                @NamedAttributeNode(value = "orderItem", subgraph = "orderItem.item")},
+                subgraphs = @NamedSubgraph(name = "orderItem.item", attributeNodes = @NamedAttributeNode("item")))
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
@@ -87,14 +106,27 @@ public class Order {
      * 주문 취소
      */
     public void cancel(){
-        if(delivery.getStatus() == DeliveryStatus.COMP){
-            throw new IllegalStateException("이미 배송완료된 상품은 취소 불가능");
-        }
+        validateCancelable();
         this.setStatus(OrderStatus.CANCEL);
         for(OrderItem orderItem : orderItem){
             orderItem.cancel();
         }
     }
+
+    /**
+     * 주문 취소 - 재고 예약 엔진 사용 시
+     * 재고 복구는 엔진이 처리하므로 상태만 변경
+     */
+    public void cancelReserved(){
+        validateCancelable();
+        this.setStatus(OrderStatus.CANCEL);
+    }
+
+    private void validateCancelable() {
+        if(delivery.getStatus() == DeliveryStatus.COMP){
+            throw new IllegalStateException("이미 배송완료된 상품은 취소 불가능");
+        }
+    }
     //== 조회 로직 ==//
 
     /**
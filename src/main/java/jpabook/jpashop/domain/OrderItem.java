@@ -44,6 +44,17 @@ public class OrderItem {
         return orderItem;
     }
 
+    /**
+     * 재고 예약 엔진에서 이미 재고를 차감한 경우 (Item 엔티티의 재고는 건드리지 않음)
+     */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(item);
+        orderItem.setOrderPrice(orderPrice);
+        orderItem.setCount(count);
+        return orderItem;
+    }
+
     //== 비즈니스 로직==//
     public void cancel() { // 재고 상태를 원복한다
         getItem().addStock(count);
@@ -0,0 +1,71 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 조회 전용 테이블 (읽기 모델)
+ *
+ * 목록 api는 매번 주문 - 회원 - 배송 join에, 주문금액을 위해 orderItem까지 읽어야함
+ * => 목록에 필요한 값만 주문/취소 시점에 한 row로 미리 만들어두고, 조회는 이 테이블만 인덱스로 읽음
+ *
+ * 주문과 같은 트랜잭션에서 저장/수정 (OrderService, 회원 이름 변경은 MemberService.update), 어긋나면 OrderSummaryRebuildService로 다시 만듦
+ */
+@Entity
+@Table(name = "order_summary",
+        indexes = {
+                @Index(name = "idx_order_summary_order_date_id", columnList = "order_date, order_id"), // 키셋 페이징 정렬키
+                @Index(name = "idx_order_summary_status", columnList = "status, order_date, order_id")
+        })
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderSummary {
+
+    @Id // 주문 id를 그대로 사용
+    @Column(name = "order_id")
+    private Long orderId;
+
+    private String memberName;
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Embedded
+    private Address address; // 배송지
+
+    private int itemCount;  // 주문상품 종류 수
+    private int totalPrice;
+
+    //== 생성 메소드 ==//
+    public static OrderSummary of(Order order) {
+        OrderSummary summary = new OrderSummary();
+        summary.orderId = order.getId();
+        summary.refresh(order);
+        return summary;
+    }
+
+    //== 비즈니스 로직 ==//
+    /**
+     * 주문 기준으로 전부 다시 계산 (orderItem을 읽으므로 주문상품이 로딩됨)
+     */
+    public void refresh(Order order) {
+        this.memberName = order.getMember().getName();
+        this.orderDate = order.getOrderDate();
+        this.status = order.getStatus();
+        Address delivered = order.getDelivery().getAddress();
+        // 값 타입은 엔티티끼리 같은 인스턴스를 공유하지 않도록 복사
+        this.address = delivered == null ? null
+                : new Address(delivered.getCity(), delivered.getStreet(), delivered.getZipcode());
+        this.itemCount = order.getOrderItem().size();
+        this.totalPrice = order.getTotalPrice();
+    }
+
+    public void cancel() {
+        this.status = OrderStatus.CANCEL;
+    }
+}
@@ -6,12 +6,17 @@ import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @BatchSize(size=100)
 @Entity
+@Table(indexes = @Index(name = "idx_item_name", columnList = "name")) // 주문검색 상품이름 like '이름%'
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 2차 캐시, 변경감지/merge로 수정하면 커밋 때 캐시도 같이 갱신됨
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)// 상속관계 전략을 부모클래스에 설정해줘야함
 @DiscriminatorColumn(name = "dtype") // 어떤 컬럼으로 자식클래스를 구분할지 선언
 @Getter @Setter
@@ -26,6 +31,14 @@ public abstract class Item {
     private int price;
     private int stockQuantity;
 
+    /*
+    낙관적 락 : update 할 때 "where version = 읽었을때 버전" 조건이 붙음
+    그 사이 다른 트랜잭션이 먼저 재고를 바꿨으면 0건 update => OptimisticLockException (lost update 방지)
+     */
+    @Version
+    private Long version;
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 컬렉션 캐시에는 Category id만 저장됨
     @ManyToMany(mappedBy = "items") // mappedBy : 거울이에요!, Categroy에 items를 맵팽한거에요!
     private List<Category> categories = new ArrayList<>();
 
@@ -0,0 +1,24 @@
+package jpabook.jpashop.exception;
+
+public class RepeatedQueryException extends RuntimeException{
+
+    public RepeatedQueryException() {
+        super();
+    }
+
+    public RepeatedQueryException(String message) {
+        super(message);
+    }
+
+    public RepeatedQueryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public RepeatedQueryException(Throwable cause) {
+        super(cause);
+    }
+
+    protected RepeatedQueryException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
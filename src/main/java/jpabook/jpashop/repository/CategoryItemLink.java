@@ -0,0 +1,7 @@
+package jpabook.jpashop.repository;
+
+/**
+ * 카테고리에 직접 걸린 상품 (category_item 한 행)
+ */
+public record CategoryItemLink(Long categoryId, Long itemId) {
+}
@@ -0,0 +1,95 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 카테고리 + closure table(CategoryClosure) 조회
+ *
+ * Category.child 를 따라 내려가면 단계마다 지연로딩 + Category.items 마다 또 한번 => 트리가 깊을수록 쿼리가 늘어남
+ * => closure 에서 ancestor_id = ? 인 행이 곧 서브트리 전체이므로 깊이와 상관없이 쿼리 한번
+ */
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * 서브트리(자기 자신 포함)에 속한 모든 상품 (여러 카테고리에 걸친 상품은 한번만)
+     * closure PK(ancestor_id, descendant_id) -> idx_category_item_category -> item PK
+     */
+    public List<Item> findItemsInSubtree(Long categoryId) {
+        return em.createQuery(
+                        "select i from Item i" +
+                                " where i.id in (" +
+                                "   select ci.id from CategoryClosure c" +
+                                "   join c.descendant d" +
+                                "   join d.items ci" +
+                                "   where c.ancestor.id = :categoryId)" +
+                                " order by i.id", Item.class)
+                .setParameter("categoryId", categoryId)
+                .getResultList();
+    }
+
+    /**
+     * 서브트리의 카테고리마다, 그 카테고리의 서브트리에 속한 상품 수 (상품이 없는 카테고리는 0)
+     * ex) 도서 > IT > JPA 에서 도서로 조회하면 {도서: 3, IT: 2, JPA: 1}
+     * @return 카테고리 id -> 상품 수 (거리순)
+     */
+    public Map<Long, Long> countItemsBySubtree(Long categoryId) {
+        List<Object[]> rows = em.createQuery(
+                        "select s.descendant.id, count(distinct i.id) from CategoryClosure s" +
+                                " join CategoryClosure c on c.ancestor = s.descendant" +
+                                " join c.descendant d" +
+                                " left join d.items i" +
+                                " where s.ancestor.id = :categoryId" +
+                                " group by s.descendant.id, s.depth" +
+                                " order by s.depth, s.descendant.id", Object[].class)
+                .setParameter("categoryId", categoryId)
+                .getResultList();
+
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * 전체 카테고리 (id 순) => CategoryTreeService 스냅샷용, 엔티티가 아니라 값만
+     */
+    public List<CategoryTreeRow> findTreeRows() {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.CategoryTreeRow(c.id, c.name, p.id)" +
+                                " from Category c left join c.parent p" +
+                                " order by c.id", CategoryTreeRow.class)
+                .getResultList();
+    }
+
+    /**
+     * 전체 카테고리-상품 연결 (카테고리, 상품 id 순) => item 테이블은 조인하지 않고 category_item만
+     */
+    public List<CategoryItemLink> findItemLinks() {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.CategoryItemLink(c.id, i.id)" +
+                                " from Category c join c.items i" +
+                                " order by c.id, i.id", CategoryItemLink.class)
+                .getResultList();
+    }
+}
@@ -0,0 +1,8 @@
+package jpabook.jpashop.repository;
+
+/**
+ * 카테고리 트리 스냅샷을 만들 행 (CategoryRepository.findTreeRows)
+ * @param parentId 최상위 카테고리면 null
+ */
+public record CategoryTreeRow(Long id, String name, Long parentId) {
+}
@@ -1,15 +1,25 @@
 package jpabook.jpashop.repository;
 
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
+
+    private static final String STOCK_QUERY_SPACE = "item_stock"; // 재고 native update 전용 (테이블 아님)
+
     private final EntityManager em;
     public void save(Item item) {
         if(item.getId() == null) {
@@ -23,8 +33,83 @@ public class ItemRepository {
     public Item findOne(Long id) {
         return em.find(Item.class, id);
     }
+
+    /**
+     * 락을 걸고 조회 (PESSIMISTIC_WRITE => select ... for update)
+     */
+    public Item findOne(Long id, LockModeType lockMode) {
+        return em.find(Item.class, id, lockMode);
+    }
+
+    /**
+     * 여러 상품을 in 쿼리 한번으로 조회 (id 순 정렬)
+     */
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids order by i.id", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * 락을 걸고 여러 상품 조회, id 순으로 락을 잡으므로 동시 주문끼리 데드락이 나지 않음
+     */
+    public List<Item> findAllByIds(Collection<Long> ids, LockModeType lockMode) {
+        return em.createQuery("select i from Item i where i.id in :ids order by i.id", Item.class)
+                .setParameter("ids", ids)
+                .setLockMode(lockMode)
+                .getResultList();
+    }
+
+    /**
+     * 재고 차감을 update 한 문장으로 (조회 없이 DB에서 원자적으로 처리)
+     * 재고가 모자라면 0건 update
+     * 영속성 컨텍스트를 거치지 않으므로, 이미 조회한 Item 엔티티의 재고는 갱신되지 않음
+     * @return 차감 성공 여부
+     */
+    public boolean decreaseStock(Long id, int count) {
+        return updateStock("update item set stock_quantity = stock_quantity - :count, version = version + 1" +
+                " where item_id = :id and stock_quantity >= :count", id, count) == 1;
+    }
+
+    public void increaseStock(Long id, int count) {
+        updateStock("update item set stock_quantity = stock_quantity + :count, version = version + 1" +
+                " where item_id = :id", id, count);
+    }
+
+    /**
+     * 재고 update는 2차 캐시를 그 상품만 비움
+     * JPQL 벌크 update(또는 query space 없는 native update)는 하이버네이트가 어떤 row가 바뀌었는지 모르므로
+     * Item 캐시 영역 전체 + item 쿼리 캐시를 통째로 무효화함 => 주문 한 건마다 상품 캐시가 다 날아감
+     *  - query space는 아무 엔티티/쿼리도 안쓰는 이름(STOCK_QUERY_SPACE)으로 => 통째 무효화 없음
+     *    (findAll 쿼리 캐시는 id 목록만 담으므로 재고가 바뀌어도 그대로 유효)
+     *  - 바뀐 상품 하나만 트랜잭션이 끝난 뒤 evict
+     *    (커밋 전에 다른 트랜잭션이 예전 재고를 읽어 캐시에 넣어도 커밋 후에 다시 비움)
+     */
+    private int updateStock(String sql, Long id, int count) {
+        int updated = em.createNativeQuery(sql)
+                .setParameter("count", count)
+                .setParameter("id", id)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(STOCK_QUERY_SPACE)
+                .executeUpdate();
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Item.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Item.class, id);
+                }
+            });
+        }
+        return updated;
+    }
+
     public List<Item> findAll() {
         // 여러개 찾는거는 jpql작성 필요~!
-        return em.createQuery("select i from Item i", Item.class).getResultList();
+        // 쿼리 캐시 : 결과 id 목록만 캐시하고 엔티티는 2차 캐시에서 꺼냄, item 테이블이 바뀌면 자동 무효화
+        return em.createQuery("select i from Item i", Item.class)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList();
     }
 }
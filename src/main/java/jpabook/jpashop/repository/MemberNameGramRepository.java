@@ -0,0 +1,89 @@
+package jpabook.jpashop.repository;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.JPQLQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.MemberNameGram;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.Set;
+
+import static jpabook.jpashop.domain.QMemberNameGram.memberNameGram;
+
+/**
+ * 회원 이름 n-gram 색인 저장 + 부분일치 검색용 후보 회원 id 서브쿼리
+ *
+ * 후보 id는 서브쿼리로 주문 조회에 같이 넣음 (id 목록을 애플리케이션으로 가져오면 흔한 검색어일 때 in 절이 너무 커짐)
+ * => db가 (gram, member_id) PK 인덱스로 후보 회원부터 구하고 나서 주문을 찾음
+ * 후보는 조각을 모두 가졌을 뿐 연속인지는 모르므로, 호출하는 쪽에서 like '%이름%'로 한번 더 걸러야 함
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberNameGramRepository {
+
+    private final EntityManager em;
+
+    /**
+     * 신규 회원 색인 (id가 할당된 뒤에 호출)
+     */
+    public void index(Member member) {
+        for (String gram : MemberNameGram.grams(member.getName())) {
+            em.persist(new MemberNameGram(gram, member.getId()));
+        }
+    }
+
+    /**
+     * 이름이 바뀐 회원 색인을 다시 만듦
+     */
+    public void reindex(Member member) {
+        em.createQuery("delete from MemberNameGram g where g.memberId = :memberId")
+                .setParameter("memberId", member.getId())
+                .executeUpdate();
+        index(member);
+    }
+
+    /**
+     * Querydsl용 : 이름에 keyword가 들어갈 수 있는 회원 id
+     */
+    public static JPQLQuery<Long> candidateIds(String keyword) {
+        Set<String> grams = MemberNameGram.searchGrams(keyword);
+        if (grams.isEmpty()) {
+            return JPAExpressions.selectDistinct(memberNameGram.memberId)
+                    .from(memberNameGram)
+                    .where(memberNameGram.gram.startsWith(keyword));
+        }
+        return JPAExpressions.select(memberNameGram.memberId)
+                .from(memberNameGram)
+                .where(memberNameGram.gram.in(grams))
+                .groupBy(memberNameGram.memberId)
+                .having(memberNameGram.gram.count().eq((long) grams.size())); // (gram, member_id)가 PK라 중복 없음
+    }
+
+    /**
+     * JPA Criteria용 : candidateIds(String) 과 같은 서브쿼리
+     */
+    public static Subquery<Long> candidateIds(CriteriaBuilder cb, CriteriaQuery<?> cq, String keyword) {
+        Subquery<Long> sq = cq.subquery(Long.class);
+        Root<MemberNameGram> g = sq.from(MemberNameGram.class);
+        sq.select(g.get("memberId"));
+
+        Set<String> grams = MemberNameGram.searchGrams(keyword);
+        if (grams.isEmpty()) {
+            return sq.distinct(true)
+                    .where(cb.like(g.<String>get("gram"), escapeLike(keyword) + "%", '\\'));
+        }
+        return sq.where(g.get("gram").in(grams))
+                .groupBy(g.get("memberId"))
+                .having(cb.equal(cb.count(g), (long) grams.size()));
+    }
+
+    private static String escapeLike(String keyword) {
+        return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
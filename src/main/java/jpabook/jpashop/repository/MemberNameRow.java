@@ -0,0 +1,7 @@
+package jpabook.jpashop.repository;
+
+/**
+ * 회원 id + 이름 (엔티티 없이 이름만 읽을때)
+ */
+public record MemberNameRow(Long id, String name) {
+}
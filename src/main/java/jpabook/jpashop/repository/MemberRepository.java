@@ -1,8 +1,15 @@
 package jpabook.jpashop.repository;
 
+import jakarta.persistence.QueryHint;
 import jpabook.jpashop.domain.Member;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,4 +27,20 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     // select m from Member m where m.name = ?
     List<Member> findByName(String name);
 
+    // 엔티티를 읽지 않고 있는지만 : select m.id from Member m where m.name = ? (limit 1), uk_member_name 인덱스
+    boolean existsByName(String name);
+
+    // 이름 필터 적재용 id 키셋 조회 (엔티티 x, 이름만)
+    @Query("select new jpabook.jpashop.repository.MemberNameRow(m.id, m.name) from Member m where m.id > :afterId order by m.id")
+    List<MemberNameRow> findNamesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 대량 적재 중복검사 : chunk의 이름 중 이미 있는 것만 (uk_member_name 인덱스, 엔티티 x)
+    @Query("select m.name from Member m where m.name in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    // 주문 화면마다 전체 회원을 다시 읽으므로 쿼리 캐시 (member 테이블이 바뀌면 자동 무효화)
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Member> findAll();
+
 }
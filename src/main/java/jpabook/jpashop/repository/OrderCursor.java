@@ -0,0 +1,53 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Order;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징용 커서
+ * 마지막으로 내려준 주문의 (orderDate, id)를 기억해두고, 다음 페이지는 그 뒤부터 조회한다.
+ *
+ * 클라이언트에겐 불투명한(opaque) 문자열 토큰으로만 노출
+ * => 내부 정렬키가 바뀌어도 api 스펙은 그대로 유지됨
+ */
+@Getter
+public class OrderCursor {
+
+    private static final String DELIMITER = "|";
+
+    private final LocalDateTime orderDate;
+    private final Long id;
+
+    public OrderCursor(LocalDateTime orderDate, Long id) {
+        this.orderDate = orderDate;
+        this.id = id;
+    }
+
+    public static OrderCursor of(Order order) {
+        return new OrderCursor(order.getOrderDate(), order.getId());
+    }
+
+    public String encode() {
+        String raw = orderDate + DELIMITER + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int idx = raw.lastIndexOf(DELIMITER);
+            if (idx < 0) {
+                throw new IllegalArgumentException("잘못된 커서 입니다.");
+            }
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, idx)), Long.valueOf(raw.substring(idx + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            // Base64 디코딩 실패는 IllegalArgumentException 으로 그대로 올라옴
+            throw new IllegalArgumentException("잘못된 커서 입니다.", e);
+        }
+    }
+}
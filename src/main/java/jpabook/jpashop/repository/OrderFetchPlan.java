@@ -0,0 +1,41 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 주문 조회 fetch plan (Order의 @NamedEntityGraph)
+ * 화면마다 fetch join JPQL을 새로 만드는 대신, 같은 검색에 plan만 바꿔서 load graph로 적용
+ *  - SUMMARY    : 회원, 배송 (to_one만 => 페이징 가능, 주문상품은 @BatchSize로)
+ *  - WITH_ITEMS : 회원, 주문상품 + 상품
+ *  - FULL       : 회원, 배송, 주문상품 + 상품
+ *
+ * 컬렉션(주문상품)을 fetch하는 plan은 페이징 불가 (row가 주문상품 수만큼 늘어나서 DB limit이 의미가 없음)
+ * => 페이징 조회에서는 checkPageable로 거절 (hibernate fail_on_pagination_over_collection_fetch 로도 한번 더 막음)
+ */
+@Getter
+@RequiredArgsConstructor
+public enum OrderFetchPlan {
+
+    SUMMARY("Order.summary", false),
+    WITH_ITEMS("Order.withItems", true),
+    FULL("Order.full", true);
+
+    public static final String LOAD_GRAPH = "jakarta.persistence.loadgraph";
+
+    private final String graphName;
+    private final boolean collection;
+
+    public EntityGraph<?> graph(EntityManager em) {
+        return em.getEntityGraph(graphName);
+    }
+
+    public void checkPageable() {
+        if (collection) {
+            throw new IllegalArgumentException("컬렉션을 fetch하는 plan은 페이징할 수 없습니다. plan=" + this
+                    + " (SUMMARY로 조회하고 주문상품은 batch fetch 사용)");
+        }
+    }
+}
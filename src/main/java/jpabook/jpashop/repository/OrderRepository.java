@@ -1,23 +1,35 @@
 package jpabook.jpashop.repository;
 
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import jpabook.jpashop.config.OrderQueryCacheConfig;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.QMember;
 import jpabook.jpashop.domain.QOrder;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static jpabook.jpashop.domain.QMember.member;
 import static jpabook.jpashop.domain.QOrder.order;
+import static jpabook.jpashop.domain.QOrderItem.orderItem;
+import static jpabook.jpashop.domain.item.QItem.item;
 
 @Repository
 //@RequiredArgsConstructor
@@ -38,6 +50,13 @@ public class OrderRepository {
         return em.find(Order.class, id);
     }
 
+    /**
+     * 주문 한건 + plan의 연관관계를 load graph로 같이 (한건이라 컬렉션 plan도 가능)
+     */
+    public Order findOne(Long id, OrderFetchPlan plan) {
+        return em.find(Order.class, id, Map.of(OrderFetchPlan.LOAD_GRAPH, plan.graph(em)));
+    }
+
     // 검색기능 - 모든 조건으로 검색
     public List<Order> findAll(OrderSearch orderSearch){
         return em.createQuery("select o from Order o join o.member m" +
@@ -51,6 +70,13 @@ public class OrderRepository {
 
     // 검색기능 jpql을 직접 조건에따라작성 - 무식한방법
     public List<Order> findAllByString(OrderSearch orderSearch) {
+        return findAllByString(orderSearch, 1000);
+    }
+
+    /**
+     * @param limit 최대 건수 (JPQL은 같으므로 계획 캐시도 같이 씀)
+     */
+    public List<Order> findAllByString(OrderSearch orderSearch, int limit) {
         String jpql = "select o from Order o join o.member m where 1=1";
 
         // 회원이름 검색
@@ -64,7 +90,7 @@ public class OrderRepository {
         }
 
         TypedQuery<Order> query = em.createQuery(jpql, Order.class)
-                .setMaxResults(1000);
+                .setMaxResults(limit);
         if(StringUtils.hasText(orderSearch.getMemberName())){
             query.setParameter("name", orderSearch.getMemberName());
         }
@@ -92,8 +118,9 @@ public class OrderRepository {
             Predicate status = cb.equal(o.get("status"), orderSearch.getOrderStatus());
             criteria.add(status);
         }
-        // 회원 이름 검색
+        // 회원 이름 검색 : n-gram 색인으로 후보 회원을 먼저 좁히고 like로 확인
         if(StringUtils.hasText(orderSearch.getMemberName())){
+            criteria.add(m.get("id").in(MemberNameGramRepository.candidateIds(cb, cq, orderSearch.getMemberName())));
             Predicate name = cb.like(m.<String>get("name"), "%"+orderSearch.getMemberName()+"%");
             criteria.add(name);
         }
@@ -166,8 +193,59 @@ public class OrderRepository {
 
     }
 
+    /**
+     * 키셋(seek) 페이징
+     * offset 페이징은 앞의 offset만큼 읽고 버리기 떄문에, 뒤로 갈수록 느려짐 (5000페이지 => 50만 row를 읽고 버림)
+     * => 마지막으로 조회한 (orderDate, id) 다음부터 where 조건으로 바로 찾아가면, 몇페이지든 limit 만큼만 읽음
+     *    (orders(order_date, order_id) 인덱스를 타도록 정렬키와 인덱스 컬럼 순서를 맞춰둠)
+     *
+     * to_One 관계만 fetch join 하므로 컬렉션(orderItem)은 그대로 @BatchSize 지연로딩으로 가져옴
+     * @param cursor 이전 페이지의 마지막 주문, 첫 페이지는 null
+     */
+    public List<Order> findAllWithMemberDelivery(OrderCursor cursor, int limit) {
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d";
+        if (cursor != null) {
+            jpql += " where o.orderDate > :orderDate" +
+                    " or (o.orderDate = :orderDate and o.id > :id)";
+        }
+        jpql += " order by o.orderDate, o.id";
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit);
+        if (cursor != null) {
+            query.setParameter("orderDate", cursor.getOrderDate());
+            query.setParameter("id", cursor.getId());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 주문 id 순으로 limit 건씩 (배치 작업용)
+     * 작업 도중 다른 트랜잭션이 주문을 바꾸지 못하도록 select ... for update
+     */
+    public List<Order> findChunkForUpdate(Long lastId, int limit) {
+        return em.createQuery("select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " where o.id > :lastId" +
+                        " order by o.id", Order.class)
+                .setParameter("lastId", lastId)
+                .setMaxResults(limit)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
     /**
      * QueryDsl로 동적쿼리 작성해보기!
+     *
+     * 인덱스를 탈 수 있는 조건으로만 작성
+     *  - 주문상태 + 주문일시 범위 + 정렬 : orders(status, order_date, member_id)
+     *    (상태 조건이 없으면 orders(order_date, order_id))
+     *  - 회원 이름 : like '%이름%' 은 인덱스를 못타므로 n-gram 색인(member_name_gram)으로 후보 회원 id를 먼저 구함
+     *  - 상품 이름 : exists 서브쿼리 + like '이름%' => item(name)
+     *  - 주문금액 : 주문상품 합계 서브쿼리 (주문 id로 order_item FK 인덱스 조회), 다른 조건으로 먼저 좁힌 뒤 적용됨
      * @param orderSearch
      * @return
      */
@@ -176,13 +254,78 @@ public class OrderRepository {
 
         return query.select(order)
                 .from(order)
-                .join(member)
-                .where(statusEq(orderSearch.getOrderStatus()), nameLike(orderSearch.getMemberName()))
+                .join(order.member, member) // 연관관계로 join 해야 FK 조건(on)이 붙음
+                .where(searchConditions(orderSearch))
 //                .where(member.name.like(orderSearch.getMemberName())) // 이건 정적쿼리
 //                .where(order.status.eq(orderSearch.getOrderStatus())) // 이건 정적쿼리
+                .orderBy(orderBy(orderSearch.getSort()))
                 .limit(1000)
                 .fetch();
     }
+
+    /**
+     * findAll2 페이징 : 페이지 내용만 (건수는 countAll2)
+     * @param limit 페이지 크기 (다음 페이지 유무만 볼때는 +1 해서 호출)
+     */
+    public List<Order> findAll2Page(OrderSearch orderSearch, long offset, int limit) {
+        return pageQuery(orderSearch, offset, limit).fetch();
+    }
+
+    /**
+     * @param plan to_one만 fetch하는 plan (컬렉션 plan은 IllegalArgumentException)
+     */
+    public List<Order> findAll2Page(OrderSearch orderSearch, long offset, int limit, OrderFetchPlan plan) {
+        plan.checkPageable();
+        return pageQuery(orderSearch, offset, limit)
+                .setHint(OrderFetchPlan.LOAD_GRAPH, plan.graph(em))
+                .fetch();
+    }
+
+    private JPAQuery<Order> pageQuery(OrderSearch orderSearch, long offset, int limit) {
+        return query.select(order)
+                .from(order)
+                .join(order.member, member)
+                .where(searchConditions(orderSearch))
+                .orderBy(orderBy(orderSearch.getSort()))
+                .offset(offset)
+                .limit(limit);
+    }
+
+    /**
+     * findAll2 전체 건수
+     *  - 정렬 없음, 회원 이름 조건이 없으면 member join도 뺌 (주문에는 항상 회원이 있으므로 건수는 같음)
+     *  - 같은 조건은 캐시 (주문 생성/취소 시 무효화, 회원 이름 변경은 TTL로만 반영)
+     */
+    @Cacheable(cacheNames = OrderQueryCacheConfig.ORDER_SEARCH_COUNTS, key = "#orderSearch.filterKey()")
+    public long countAll2(OrderSearch orderSearch) {
+        JPAQuery<Long> count = query.select(order.count()).from(order);
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            count.join(order.member, member);
+        }
+        Long total = count.where(searchConditions(orderSearch)).fetchOne();
+        return total == null ? 0 : total;
+    }
+
+    /**
+     * 주문 테이블 추정 건수 (H2 테이블 통계, count 쿼리 없이)
+     */
+    public long estimateCount() {
+        Number estimate = (Number) em.createNativeQuery("select row_count_estimate from information_schema.tables" +
+                        " where table_schema = 'PUBLIC' and table_name = 'ORDERS'")
+                .getSingleResult();
+        return estimate.longValue();
+    }
+
+    private BooleanExpression[] searchConditions(OrderSearch orderSearch) {
+        return new BooleanExpression[]{
+                statusEq(orderSearch.getOrderStatus()),
+                nameLike(orderSearch.getMemberName()),
+                orderDateGoe(orderSearch.getOrderDateFrom()),
+                orderDateLt(orderSearch.getOrderDateTo()),
+                itemNameLike(orderSearch.getItemName()),
+                totalPriceGoe(orderSearch.getMinTotalPrice()),
+                totalPriceLoe(orderSearch.getMaxTotalPrice())};
+    }
     private BooleanExpression statusEq(OrderStatus statusCond){
         if(statusCond == null) return null;
         return order.status.eq(statusCond);
@@ -192,6 +335,54 @@ public class OrderRepository {
         if(!StringUtils.hasText(memberName)){
             return null;
         }
-        return member.name.like("%"+memberName+"%");
+        // 후보 회원 id는 (gram, member_id) 인덱스로, 조각이 연속인지는 like '%이름%'로 확인
+        return member.id.in(MemberNameGramRepository.candidateIds(memberName))
+                .and(member.name.contains(memberName));
+    }
+
+    private BooleanExpression orderDateGoe(LocalDateTime from) {
+        return from == null ? null : order.orderDate.goe(from);
+    }
+
+    private BooleanExpression orderDateLt(LocalDateTime to) {
+        return to == null ? null : order.orderDate.lt(to);
+    }
+
+    private BooleanExpression itemNameLike(String itemName) {
+        if (!StringUtils.hasText(itemName)) {
+            return null;
+        }
+        return JPAExpressions.selectOne()
+                .from(orderItem)
+                .join(orderItem.item, item)
+                .where(orderItem.order.eq(order), item.name.startsWith(itemName))
+                .exists();
+    }
+
+    private BooleanExpression totalPriceGoe(Integer minTotalPrice) {
+        return minTotalPrice == null ? null : totalPrice().goe(minTotalPrice.longValue());
+    }
+
+    private BooleanExpression totalPriceLoe(Integer maxTotalPrice) {
+        return maxTotalPrice == null ? null : totalPrice().loe(maxTotalPrice.longValue());
+    }
+
+    // 주문금액 = sum(주문가격 * 수량), jpql sum은 Long
+    private static JPQLQuery<Long> totalPrice() {
+        return JPAExpressions.select(Expressions.numberTemplate(Long.class, "sum({0} * {1})", orderItem.orderPrice, orderItem.count))
+                .from(orderItem)
+                .where(orderItem.order.eq(order));
+    }
+
+    // 같은 주문일시끼리도 순서가 고정되도록 id를 마지막 정렬키로
+    private static OrderSpecifier<?>[] orderBy(OrderSearch.Sort sort) {
+        return switch (sort == null ? OrderSearch.Sort.LATEST : sort) {
+            case LATEST -> new OrderSpecifier<?>[]{order.orderDate.desc(), order.id.desc()};
+            case OLDEST -> new OrderSpecifier<?>[]{order.orderDate.asc(), order.id.asc()};
+            case TOTAL_PRICE_DESC -> new OrderSpecifier<?>[]{
+                    new OrderSpecifier<>(com.querydsl.core.types.Order.DESC, totalPrice()), order.id.desc()};
+            case TOTAL_PRICE_ASC -> new OrderSpecifier<?>[]{
+                    new OrderSpecifier<>(com.querydsl.core.types.Order.ASC, totalPrice()), order.id.asc()};
+        };
     }
 }
@@ -3,6 +3,10 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
 
 @Getter @Setter
 public class OrderSearch {
@@ -10,4 +14,51 @@ public class OrderSearch {
     private String memberName;  // 회원 이름
     private OrderStatus orderStatus; // 주문 상태(ORDER, CANCEL)
 
+    // 주문일시 범위 [from, to)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime orderDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime orderDateTo;
+
+    private String itemName;    // 주문상품 이름
+    private Integer minTotalPrice; // 주문금액 범위
+    private Integer maxTotalPrice;
+
+    private Sort sort = Sort.LATEST;
+
+    private CountMode countMode = CountMode.EXACT; // 페이징 검색의 전체 건수
+
+    public enum Sort {
+        LATEST,         // 주문일시 최신순
+        OLDEST,         // 주문일시 오래된순
+        TOTAL_PRICE_DESC,
+        TOTAL_PRICE_ASC
+    }
+
+    public enum CountMode {
+        EXACT,          // count 쿼리 (같은 조건이면 캐시)
+        APPROXIMATE,    // 조건이 없으면 테이블 통계의 추정 건수, 조건이 있으면 EXACT와 같음
+        NONE            // count 없이 다음 페이지 유무만 (Slice)
+    }
+
+    public boolean hasFilter() {
+        return StringUtils.hasText(memberName) || orderStatus != null
+                || orderDateFrom != null || orderDateTo != null
+                || StringUtils.hasText(itemName) || minTotalPrice != null || maxTotalPrice != null;
+    }
+
+    /**
+     * 건수 캐시 키 : 건수에 영향을 주는 조건만 (정렬, 페이지는 제외)
+     */
+    public String filterKey() {
+        return memberName + ":" + orderStatus + ":" + orderDateFrom + ":" + orderDateTo + ":"
+                + itemName + ":" + minTotalPrice + ":" + maxTotalPrice;
+    }
+
+    /**
+     * 추정 건수를 쓰는 경우 (응답에 추정치라고 같이 알려줌)
+     */
+    public boolean countsByEstimate() {
+        return countMode == CountMode.APPROXIMATE && !hasFilter();
+    }
 }
@@ -5,7 +5,6 @@ import jpabook.jpashop.domain.OrderStatus;
 import lombok.Data;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Data
 public class OrderFlatDto {
@@ -18,21 +17,23 @@ public class OrderFlatDto {
     private LocalDateTime orderDate;
     private OrderStatus orderStatus;
     private Address address;
-    private List<OrderItemQueryDto> orderItems;
-    // OrderItem 부분
+    // OrderItem 부분 (주문상품 left join 이면 주문상품이 없는 주문은 null)
     private String itemName;
-    private int orderPrice;
-    private int count;
+    private Integer orderPrice;
+    private Integer count;
 
-    public OrderFlatDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address, List<OrderItemQueryDto> orderItems, String itemName, int orderPrice, int count) {
+    public OrderFlatDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address, String itemName, Integer orderPrice, Integer count) {
         this.orderId = orderId;
         this.name = name;
         this.orderDate = orderDate;
         this.orderStatus = orderStatus;
         this.address = address;
-        this.orderItems = orderItems;
         this.itemName = itemName;
         this.orderPrice = orderPrice;
         this.count = count;
     }
+
+    public boolean hasOrderItem() {
+        return count != null;
+    }
 }
@@ -1,13 +1,30 @@
 package jpabook.jpashop.repository.order.query;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.config.OrderQueryCacheConfig;
+import jpabook.jpashop.config.QueryExecutionProperties;
+import jpabook.jpashop.config.QueryExecutor;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.domain.OrderItem;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * query / SimpleQuery 패키지를 나눈 이유
@@ -24,6 +41,9 @@ import java.util.stream.Collectors;
 public class OrderQueryRepository {
 
     private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final QueryExecutionProperties queryExecutionProperties;
+    private final QueryExecutor queryExecutor;
 
     // 컬렉션을 포함해 조회해 올 경우
     public List<OrderQueryDto> findOrderQueryDtos() {
@@ -50,25 +70,33 @@ public class OrderQueryRepository {
         return em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                         // oi.order.id 이런식으로 연결된 객체의 값을 꺼내올 수 있음. 이경우엔 fk라 굳이 order를 찾지않고 가져오긴 함.!
-                " OrderItem oi" +
+                " from OrderItem oi" +
                 " join oi.item i" +
-                " where oi.orderId = :orderId", OrderItemQueryDto.class)
+                " where oi.order.id = :orderId", OrderItemQueryDto.class)
                 .setParameter("orderId",orderId)
                 .getResultList();
     }
 
     private List<OrderQueryDto> findOrders() {
+        return findOrders(em);
+    }
+
+    private static List<OrderQueryDto> findOrders(EntityManager em) {
         return em.createQuery(
-                "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, o.name, o.orderDate, o.status, d.address)" +
+                "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
                         // 이렇게 jpql로 생성자에 바로 넣더라도, collection을 넣을 수 는 없음. 데이터를 flat하게 한줄로 밖에 못 넣음
-                        " Order o" +
+                        " from Order o" +
                         " join o.member m" +
                         " join o.delivery d", OrderQueryDto.class
         ).getResultList();
     }
 
     // 컬렉션 조회 최적화 해보기!!
+    @Cacheable(cacheNames = OrderQueryCacheConfig.ORDER_QUERY_DTOS, key = "'findAllByDto_optimiztion'") // 주문/취소 커밋되면 무효화
     public List<OrderQueryDto> findAllByDto_optimiztion() {
+        if (isParallelAllowed()) {
+            return findAllByDto_parallel();
+        }
         // Order 조회는 똑같음
         List<OrderQueryDto> result = findOrders();
         // 루프를 돌지않고, 한방에가져와 보겠음
@@ -83,35 +111,130 @@ public class OrderQueryRepository {
         /**
          * 쿼리는 루트쿼리 1 + 컬렉션쿼리 1 해서 총 두번나감.
          * 한번에 가져와서 메모리에서 처리
+         * (주문이 inChunkSize 보다 많으면 컬렉션쿼리는 chunk 수만큼)
          */
     }
 
+    /**
+     * V5 병렬 버전 : 루트쿼리와 컬렉션쿼리를 각각 다른 커넥션에서 동시에 실행
+     *
+     * 컬렉션쿼리가 루트쿼리 결과(orderIds)를 기다리면 동시에 못 돌림
+     * => 루트쿼리와 같은 조건(주문 - 회원 - 배송이 있는 주문 전체)으로 주문상품을 join 해서 따로 조회하고 메모리에서 합침
+     * => 응답시간 = 두 쿼리 중 느린 쪽, in 절이 없으므로 chunk로 나눌 필요도 없음
+     *
+     * 각 쿼리는 트랜잭션 없이 자기 EntityManager(= 자기 커넥션)로 실행되므로, 두 쿼리 사이에 들어온 주문은
+     * 주문상품 없이 나오거나 빠질 수 있음 => 트랜잭션 밖에서, 목록 조회 용도로만 사용
+     * (다른 스레드에서 실행되므로 요청당 SQL 집계(QueryCounter)에는 잡히지 않음)
+     */
+    private List<OrderQueryDto> findAllByDto_parallel() {
+        CompletableFuture<List<OrderQueryDto>> orders = supplyReadOnly(OrderQueryRepository::findOrders);
+        CompletableFuture<List<OrderItemQueryDto>> orderItems = supplyReadOnly(em -> em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+                                " from OrderItem oi" +
+                                " join oi.item i" +
+                                " join oi.order o" +
+                                " join o.member m" +
+                                " join o.delivery d", OrderItemQueryDto.class)
+                .getResultList());
+
+        List<OrderQueryDto> result = join(orders);
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = join(orderItems).stream()
+                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+        return result;
+    }
+
+    /**
+     * 새 EntityManager로 읽기전용 조회를 queryExecutor에서 실행
+     */
+    private <T> CompletableFuture<T> supplyReadOnly(Function<EntityManager, T> query) {
+        return CompletableFuture.supplyAsync(() -> {
+            EntityManager entityManager = emf.createEntityManager();
+            try {
+                entityManager.setProperty(HibernateHints.HINT_READ_ONLY, true);
+                return query.apply(entityManager);
+            } finally {
+                entityManager.close();
+            }
+        }, queryExecutor.executor());
+    }
+
+    /**
+     * 주문 id를 inChunkSize 개씩 나눠서 in 쿼리
+     *  - 주문이 5만건이면 in 절 하나에 5만개 => SQL이 거대해지고, id 개수마다 다른 SQL이라 실행계획 캐시가 계속 늘어남
+     *  - chunk 크기는 2의 제곱수 + hibernate.query.in_clause_parameter_padding
+     *    => 마지막 chunk도 2의 제곱수 개수로 패딩되어 SQL 모양이 몇 가지로만 고정됨
+     *  - 현재 EntityManager로 순서대로 (트랜잭션 안이면 같은 스냅샷)
+     *    parallelFanOut 일때는 이 메서드 대신 findAllByDto_parallel 이 루트/컬렉션을 동시에 돌림
+     */
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
+        List<List<Long>> chunks = chunk(orderIds, queryExecutionProperties.getInChunkSize());
+
+        return chunks.stream()
+                .flatMap(chunk -> findOrderItems(em, chunk).stream())
+                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+    }
+
+    static List<List<Long>> chunk(List<Long> ids, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalStateException("inChunkSize는 1 이상이어야 합니다. inChunkSize=" + chunkSize);
+        }
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static List<OrderItemQueryDto> findOrderItems(EntityManager em, List<Long> orderIds) {
+        return em.createQuery(
                         "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                                 // oi.order.id 이런식으로 연결된 객체의 값을 꺼내올 수 있음. 이경우엔 fk라 굳이 order를 찾지않고 가져오긴 함.!
-                                " OrderItem oi" +
+                                " from OrderItem oi" +
                                 " join oi.item i" +
-                                " where oi.orderId in :orderIds", OrderItemQueryDto.class)
+                                " where oi.order.id in :orderIds", OrderItemQueryDto.class)
                 .setParameter("orderIds", orderIds)
                 .getResultList();
+    }
+
+    private boolean isParallelAllowed() {
+        return queryExecutionProperties.isParallelFanOut() && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
 
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream().collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
-        return orderItemMap;
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
     private static List<Long> toOrderIds(List<OrderQueryDto> result) {
         return result.stream().map(o -> o.getOrderId()).collect(Collectors.toList());
     }
 
+    private static final String FLAT_QUERY =
+            "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                    " from Order o" +
+                    " join o.member m" +
+                    " join o.delivery d" +
+                    " join o.orderItem oi" + // 뻥튀기 !
+                    " join oi.item i";
+
+    // 페이지 조회용 : 1단계에서 고른 주문은 주문상품이 없어도 빠지지 않도록 left join
+    private static final String PAGE_FLAT_QUERY =
+            "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                    " from Order o" +
+                    " join o.member m" +
+                    " join o.delivery d" +
+                    " left join o.orderItem oi" +
+                    " left join oi.item i";
+
     public List<OrderFlatDto> findAllByDto_flat () {
-        return em.createQuery(
-                "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m,name, o.orderDate, o.status, d.address, i.name, oi.orderPrice,oi.count )" +
-                        " from Order o" +
-                        " join o.member m" +
-                        " join o.delivery d" +
-                        " join o.orderItem oi" + // 뻥튀기 !
-                        " join oi.item i", OrderFlatDto.class)
+        return em.createQuery(FLAT_QUERY, OrderFlatDto.class)
                 .getResultList();
         // 스트림 중복처리는 생략
         /**
@@ -123,4 +246,103 @@ public class OrderQueryRepository {
          *  - 페이징 불가능
          */
     }
+
+    /**
+     * findAllByDto_flat 을 row 수 제한해서 (warm-up 처럼 SQL 계획만 필요할 때, 주문 트리가 중간에 잘릴 수 있음)
+     */
+    public List<OrderFlatDto> findAllByDto_flat(int limit) {
+        return em.createQuery(FLAT_QUERY, OrderFlatDto.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * V6 페이징 : 2단계 조회
+     *  1. 주문 id만 키셋 페이징 (orders(order_date, order_id) 인덱스, row 뻥튀기 없으므로 limit이 정확함)
+     *  2. 그 id들로만 플랫 join 한번 => 주문 순으로 정렬된 row를 스트림으로 읽으면서 바로 주문 트리로 접음
+     * => 메모리는 페이지 크기만큼만, 중복제거도 DB/컬렉터가 처리
+     * (2단계는 주문상품을 left join => 주문상품이 없는 주문도 빈 orderItems로 나옴, 페이지 건수 = 1단계 건수)
+     *
+     * @param cursor 이전 페이지의 마지막 주문, 첫 페이지는 null
+     */
+    public OrderTreePage findPageByDto_flat(OrderCursor cursor, int limit) {
+        String jpql = "select o.id, o.orderDate from Order o";
+        if (cursor != null) {
+            jpql += " where o.orderDate > :orderDate" +
+                    " or (o.orderDate = :orderDate and o.id > :id)";
+        }
+        jpql += " order by o.orderDate, o.id";
+
+        TypedQuery<Object[]> idQuery = em.createQuery(jpql, Object[].class)
+                .setMaxResults(limit);
+        if (cursor != null) {
+            idQuery.setParameter("orderDate", cursor.getOrderDate());
+            idQuery.setParameter("id", cursor.getId());
+        }
+        List<Object[]> keys = idQuery.getResultList();
+        if (keys.isEmpty()) {
+            return new OrderTreePage(List.of(), null);
+        }
+
+        List<Long> orderIds = keys.stream().map(key -> (Long) key[0]).toList();
+        List<OrderQueryDto> orders;
+        try (Stream<OrderFlatDto> rows = em.createQuery(PAGE_FLAT_QUERY +
+                        " where o.id in :orderIds" +
+                        " order by o.orderDate, o.id, oi.id", OrderFlatDto.class)
+                .setParameter("orderIds", orderIds)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            orders = rows.collect(OrderTreeCollector.toOrderTrees());
+        }
+
+        Object[] last = keys.get(keys.size() - 1);
+        OrderCursor next = keys.size() < limit ? null : new OrderCursor((LocalDateTime) last[1], (Long) last[0]);
+        return new OrderTreePage(orders, next);
+    }
+
+    /**
+     * V6 플랫 조회를 스트리밍으로 처리 (대용량 export 용)
+     * getResultList()는 결과 전체를 List로 메모리에 올리지만, getResultStream()은 JDBC 커서(ScrollableResults)로 한줄씩 읽어옴
+     *
+     * order id 순으로 정렬해서 가져오기 때문에, 같은 주문의 row는 항상 연속으로 붙어서 나옴
+     * => 전체 Map으로 그룹핑할 필요 없이, 주문 id가 바뀌는 시점에 하나씩 OrderQueryDto로 접어서 넘겨줌
+     * => 메모리에는 주문 1건 + fetchSize 만큼의 row만 유지됨
+     *
+     * 반드시 트랜잭션 안에서 호출할 것 (스트림을 다 읽을때까지 커넥션을 잡고 있어야 함)
+     * @param clearSize 몇 row마다 영속성 컨텍스트를 비울지 (JDBC fetch size로도 사용)
+     * @return 넘겨준 주문 수
+     */
+    public long forEachByDto_flat(int clearSize, Consumer<OrderQueryDto> action) {
+        long orderCount = 0;
+        long rowCount = 0;
+        OrderQueryDto current = null;
+
+        try (Stream<OrderFlatDto> rows = em.createQuery(FLAT_QUERY + " order by o.id, oi.id", OrderFlatDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, clearSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+
+            Iterator<OrderFlatDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                OrderFlatDto row = iterator.next();
+                if (OrderTreeCollector.startsNewOrder(current, row)) {
+                    if (current != null) {
+                        action.accept(current);
+                        orderCount++;
+                    }
+                    current = OrderTreeCollector.toOrder(row);
+                }
+                current.getOrderItems().add(OrderTreeCollector.toOrderItem(row));
+
+                if (++rowCount % clearSize == 0) {
+                    em.clear(); // 1차 캐시에 쌓이는게 없도록 주기적으로 비워줌
+                }
+            }
+        }
+        if (current != null) {
+            action.accept(current);
+            orderCount++;
+        }
+        return orderCount;
+    }
 }
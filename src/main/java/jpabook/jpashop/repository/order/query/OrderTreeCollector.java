@@ -0,0 +1,91 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * V6 플랫 row(주문상품 1개당 1 row)를 주문 트리(OrderQueryDto + OrderItemQueryDto)로 접는 Collector
+ *
+ * 같은 주문의 row가 연속으로 붙어 나오도록 주문 기준으로 정렬된 스트림이어야 함
+ * => 주문 id가 바뀌는 시점에만 새 OrderQueryDto를 만들면 되므로, 전체 row를 Map으로 그룹핑하지 않음
+ * 병렬 스트림에서 잘린 경계(같은 주문이 양쪽에 걸친 경우)는 combiner에서 이어붙임
+ */
+public final class OrderTreeCollector implements Collector<OrderFlatDto, List<OrderQueryDto>, List<OrderQueryDto>> {
+
+    private static final OrderTreeCollector INSTANCE = new OrderTreeCollector();
+
+    private OrderTreeCollector() {
+    }
+
+    public static OrderTreeCollector toOrderTrees() {
+        return INSTANCE;
+    }
+
+    /**
+     * 새 주문의 첫 row인지 (직전 주문과 id가 다름)
+     */
+    static boolean startsNewOrder(OrderQueryDto current, OrderFlatDto row) {
+        return current == null || !current.getOrderId().equals(row.getOrderId());
+    }
+
+    static OrderQueryDto toOrder(OrderFlatDto row) {
+        return new OrderQueryDto(row.getOrderId(), row.getName(), row.getOrderDate(),
+                row.getOrderStatus(), row.getAddress(), new ArrayList<>());
+    }
+
+    static OrderItemQueryDto toOrderItem(OrderFlatDto row) {
+        return new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getOrderPrice(), row.getCount());
+    }
+
+    @Override
+    public Supplier<List<OrderQueryDto>> supplier() {
+        return ArrayList::new;
+    }
+
+    @Override
+    public BiConsumer<List<OrderQueryDto>, OrderFlatDto> accumulator() {
+        return (orders, row) -> {
+            OrderQueryDto last = orders.isEmpty() ? null : orders.get(orders.size() - 1);
+            if (startsNewOrder(last, row)) {
+                last = toOrder(row);
+                orders.add(last);
+            }
+            if (row.hasOrderItem()) { // 주문상품이 없는 주문은 빈 목록으로
+                last.getOrderItems().add(toOrderItem(row));
+            }
+        };
+    }
+
+    @Override
+    public BinaryOperator<List<OrderQueryDto>> combiner() {
+        return (left, right) -> {
+            if (left.isEmpty()) {
+                return right;
+            }
+            int from = 0;
+            OrderQueryDto last = left.get(left.size() - 1);
+            if (!right.isEmpty() && last.getOrderId().equals(right.get(0).getOrderId())) {
+                last.getOrderItems().addAll(right.get(0).getOrderItems());
+                from = 1;
+            }
+            left.addAll(right.subList(from, right.size()));
+            return left;
+        };
+    }
+
+    @Override
+    public Function<List<OrderQueryDto>, List<OrderQueryDto>> finisher() {
+        return Function.identity();
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Set.of(Characteristics.IDENTITY_FINISH);
+    }
+}
@@ -0,0 +1,12 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.repository.OrderCursor;
+
+import java.util.List;
+
+/**
+ * V6 페이징 결과
+ * @param next 다음 페이지 커서, 마지막 페이지면 null
+ */
+public record OrderTreePage(List<OrderQueryDto> orders, OrderCursor next) {
+}
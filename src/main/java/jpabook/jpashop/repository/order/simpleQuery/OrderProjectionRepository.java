@@ -0,0 +1,87 @@
+package jpabook.jpashop.repository.order.simpleQuery;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderSearch;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static jpabook.jpashop.domain.QDelivery.delivery;
+import static jpabook.jpashop.domain.QMember.member;
+import static jpabook.jpashop.domain.QOrder.order;
+
+/**
+ * 필드 선택 조회 : 클라이언트가 고른 컬럼만 select 하고, 그 컬럼에 필요한 join만 붙임
+ * 엔티티/DTO 없이 Tuple에서 바로 응답 Map을 만듦 => 안 쓰는 컬럼은 전송도, 엔티티 생성도 안함
+ *
+ * ex) fields=orderId,orderStatus => select o.order_id, o.status from orders o (join 없음)
+ */
+@Repository
+public class OrderProjectionRepository {
+
+    private final JPAQueryFactory query;
+
+    public OrderProjectionRepository(EntityManager em) {
+        this.query = new JPAQueryFactory(em);
+    }
+
+    /**
+     * @param fields OrderSimpleField.parse 결과 (비어있으면 안됨)
+     * @return 필드 경로대로 중첩된 Map (address.city => {"address": {"city": ..}})
+     */
+    public List<Map<String, Object>> findOrderFields(Set<OrderSimpleField> fields, OrderSearch orderSearch, int limit) {
+        Expression<?>[] select = fields.stream()
+                .map(OrderSimpleField::getExpression)
+                .toArray(Expression<?>[]::new);
+
+        JPAQuery<Tuple> tupleQuery = query.select(select).from(order);
+        boolean nameFilter = StringUtils.hasText(orderSearch.getMemberName());
+        if (nameFilter || requires(fields, OrderSimpleField.Join.MEMBER)) {
+            tupleQuery.join(order.member, member);
+        }
+        if (requires(fields, OrderSimpleField.Join.DELIVERY)) {
+            tupleQuery.join(order.delivery, delivery);
+        }
+        List<Tuple> tuples = tupleQuery
+                .where(statusEq(orderSearch.getOrderStatus()), nameFilter ? member.name.like(orderSearch.getMemberName()) : null)
+                .orderBy(order.id.asc())
+                .limit(limit)
+                .fetch();
+
+        return tuples.stream()
+                .map(tuple -> toRow(fields, tuple))
+                .toList();
+    }
+
+    private static boolean requires(Set<OrderSimpleField> fields, OrderSimpleField.Join join) {
+        return fields.stream().anyMatch(f -> f.getJoin() == join);
+    }
+
+    private static BooleanExpression statusEq(OrderStatus status) {
+        return status == null ? null : order.status.eq(status);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toRow(Set<OrderSimpleField> fields, Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (OrderSimpleField field : fields) {
+            String[] path = field.getPath().split("\\.");
+            Map<String, Object> node = row;
+            for (int i = 0; i < path.length - 1; i++) {
+                node = (Map<String, Object>) node.computeIfAbsent(path[i], k -> new LinkedHashMap<String, Object>());
+            }
+            node.put(path[path.length - 1], tuple.get(field.getExpression()));
+        }
+        return row;
+    }
+}
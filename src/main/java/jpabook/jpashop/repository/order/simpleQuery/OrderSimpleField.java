@@ -0,0 +1,60 @@
+package jpabook.jpashop.repository.order.simpleQuery;
+
+import com.querydsl.core.types.Expression;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static jpabook.jpashop.domain.QDelivery.delivery;
+import static jpabook.jpashop.domain.QMember.member;
+import static jpabook.jpashop.domain.QOrder.order;
+
+/**
+ * 간단한 주문조회에서 클라이언트가 고를 수 있는 필드 (fields=orderId,memberName,address.city)
+ * 필드마다 select할 컬럼과 필요한 join을 같이 정의 => 고른 필드에 필요한 join만 붙음
+ */
+@Getter
+@RequiredArgsConstructor
+public enum OrderSimpleField {
+
+    ORDER_ID("orderId", order.id, Join.NONE),
+    ORDER_DATE("orderDate", order.orderDate, Join.NONE),
+    ORDER_STATUS("orderStatus", order.status, Join.NONE),
+    MEMBER_NAME("memberName", member.name, Join.MEMBER),
+    ADDRESS_CITY("address.city", delivery.address.city, Join.DELIVERY),
+    ADDRESS_STREET("address.street", delivery.address.street, Join.DELIVERY),
+    ADDRESS_ZIPCODE("address.zipcode", delivery.address.zipcode, Join.DELIVERY);
+
+    public enum Join { NONE, MEMBER, DELIVERY }
+
+    private static final String ADDRESS = "address";
+
+    private final String path;      // 응답 json 경로 (.으로 중첩)
+    private final Expression<?> expression;
+    private final Join join;
+
+    /**
+     * @param fields 콤마 구분, "address"는 address.* 전체, 비어있으면 전체 필드
+     */
+    public static Set<OrderSimpleField> parse(String fields) {
+        if (!StringUtils.hasText(fields)) {
+            return EnumSet.allOf(OrderSimpleField.class);
+        }
+        Set<OrderSimpleField> selected = EnumSet.noneOf(OrderSimpleField.class);
+        for (String path : StringUtils.commaDelimitedListToSet(fields.replace(" ", ""))) {
+            List<OrderSimpleField> matched = Arrays.stream(values())
+                    .filter(f -> f.path.equals(path) || (path.equals(ADDRESS) && f.path.startsWith(ADDRESS + ".")))
+                    .toList();
+            if (matched.isEmpty()) {
+                throw new IllegalArgumentException("지원하지 않는 필드 입니다. field=" + path);
+            }
+            selected.addAll(matched);
+        }
+        return selected;
+    }
+}
@@ -1,8 +1,13 @@
 package jpabook.jpashop.repository.order.simpleQuery;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.config.OrderQueryCacheConfig;
+import jpabook.jpashop.repository.OrderSearch;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
 
 import java.util.List;
 
@@ -12,12 +17,44 @@ public class OrderSimpleQueryRepository {
 
     private final EntityManager em;
 
-    public List<OrderSimpleQueryDto> findOrderDto() {
-        return em.createQuery(
-                        "select new jpabook.jpashop.repository.order.simpleQuery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
-                                "from Order o" +
-                                " join o.member m" +
-                                " join o.delivery d", OrderSimpleQueryDto.class)
+    /**
+     * 검색 조건별로 결과 캐시 (주문/취소 커밋되면 전체 무효화)
+     */
+    @Cacheable(cacheNames = OrderQueryCacheConfig.ORDER_SIMPLE_DTOS,
+            key = "#orderSearch.memberName + ':' + #orderSearch.orderStatus")
+    public List<OrderSimpleQueryDto> findOrderDto(OrderSearch orderSearch) {
+        return createQuery(orderSearch).getResultList();
+    }
+
+    /**
+     * findOrderDto 를 건수 제한해서, 결과 캐시 없이 (warm-up 처럼 SQL 계획만 필요할 때)
+     */
+    public List<OrderSimpleQueryDto> findOrderDto(OrderSearch orderSearch, int limit) {
+        return createQuery(orderSearch)
+                .setMaxResults(limit)
                 .getResultList();
     }
+
+    private TypedQuery<OrderSimpleQueryDto> createQuery(OrderSearch orderSearch) {
+        String jpql = "select new jpabook.jpashop.repository.order.simpleQuery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                " from Order o" +
+                " join o.member m" +
+                " join o.delivery d" +
+                " where 1=1";
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            jpql += " and m.name like :name";
+        }
+        if (orderSearch.getOrderStatus() != null) {
+            jpql += " and o.status = :status";
+        }
+
+        TypedQuery<OrderSimpleQueryDto> query = em.createQuery(jpql, OrderSimpleQueryDto.class);
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            query.setParameter("name", orderSearch.getMemberName());
+        }
+        if (orderSearch.getOrderStatus() != null) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        return query;
+    }
 }
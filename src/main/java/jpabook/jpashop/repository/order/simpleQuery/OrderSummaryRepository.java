@@ -0,0 +1,77 @@
+package jpabook.jpashop.repository.order.simpleQuery;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.repository.OrderCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * order_summary 조회 (join 없이 테이블 하나만 읽음)
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryRepository {
+
+    private final EntityManager em;
+
+    public void save(OrderSummary summary) {
+        em.persist(summary);
+    }
+
+    public OrderSummary findOne(Long orderId) {
+        return em.find(OrderSummary.class, orderId);
+    }
+
+    public List<OrderSummary> findAllByOrderIds(Collection<Long> orderIds) {
+        return em.createQuery("select s from OrderSummary s where s.orderId in :orderIds", OrderSummary.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * 키셋 페이징 : order_summary(order_date, order_id) 인덱스 범위 스캔만으로 limit 건
+     * @param cursor 이전 페이지의 마지막 주문, 첫 페이지는 null
+     */
+    public List<OrderSummary> findPage(OrderCursor cursor, int limit) {
+        String jpql = "select s from OrderSummary s";
+        if (cursor != null) {
+            jpql += " where s.orderDate > :orderDate" +
+                    " or (s.orderDate = :orderDate and s.orderId > :id)";
+        }
+        jpql += " order by s.orderDate, s.orderId";
+
+        TypedQuery<OrderSummary> query = em.createQuery(jpql, OrderSummary.class)
+                .setMaxResults(limit);
+        if (cursor != null) {
+            query.setParameter("orderDate", cursor.getOrderDate());
+            query.setParameter("id", cursor.getId());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 회원 이름이 바뀌면 그 회원 주문들의 요약 row도 같이 (벌크 update)
+     * @return 바뀐 요약 row 수
+     */
+    public int updateMemberName(Long memberId, String memberName) {
+        return em.createQuery("update OrderSummary s set s.memberName = :memberName" +
+                        " where s.orderId in (select o.id from Order o where o.member.id = :memberId)")
+                .setParameter("memberName", memberName)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    /**
+     * 원본 주문이 없는 요약 row 삭제
+     */
+    public int deleteOrphans() {
+        return em.createQuery("delete from OrderSummary s" +
+                        " where not exists (select o.id from Order o where o.id = s.orderId)")
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,8 @@
+package jpabook.jpashop.service;
+
+/**
+ * 카테고리 구조(추가, 이동) 또는 카테고리-상품 연결이 바뀜 (카테고리 트리 스냅샷 재생성용)
+ * 트랜잭션 안에서 발행하고, 리스너는 커밋된 뒤에 처리
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
@@ -0,0 +1,88 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 카테고리 변경 => 커밋되면 CategoryTreeService가 스냅샷을 다시 만듦 (CategoryChangedEvent)
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * @param parentId 최상위 카테고리면 null
+     */
+    @Transactional
+    public Long create(String name, Long parentId) {
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            findCategory(parentId).addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+        return category.getId();
+    }
+
+    /**
+     * 서브트리째로 다른 카테고리 밑으로 옮김
+     */
+    @Transactional
+    public void move(Long categoryId, Long parentId) {
+        Category category = findCategory(categoryId);
+        Category parent = findCategory(parentId);
+        parent.addChildCategory(category); // 자기 서브트리 밑이면 IllegalArgumentException
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+    }
+
+    /**
+     * 연관관계 주인(Category.items)만 바꾸면 category_item 에는 들어가지만,
+     * 반대쪽 Item.categories 는 2차 캐시(컬렉션 캐시)에 예전 목록이 그대로 남음 => 커밋되면 그 상품 것만 비움
+     */
+    @Transactional
+    public void addItem(Long categoryId, Long itemId) {
+        Category category = findCategory(categoryId);
+        Item item = itemRepository.findOne(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품 입니다. itemId=" + itemId);
+        }
+        category.getItems().add(item);
+        evictItemCategoriesAfterCommit(itemId);
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+    }
+
+    private void evictItemCategoriesAfterCommit(Long itemId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                        .evictCollectionData(Item.class.getName() + ".categories", itemId);
+            }
+        });
+    }
+
+    private Category findCategory(Long categoryId) {
+        Category category = categoryRepository.findOne(categoryId);
+        if (category == null) {
+            throw new IllegalArgumentException("존재하지 않는 카테고리 입니다. categoryId=" + categoryId);
+        }
+        return category;
+    }
+}
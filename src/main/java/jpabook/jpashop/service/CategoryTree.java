@@ -0,0 +1,233 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.CategoryItemLink;
+import jpabook.jpashop.repository.CategoryTreeRow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 카테고리 트리 전체의 불변 스냅샷 (CategoryTreeService가 AtomicReference로 통째로 교체)
+ *
+ * 노드는 배열 인덱스, 깊이 우선 전위 순서(pre-order)로 배치
+ *  => 노드 i의 자손은 i+1 ~ end[i]-1 연속 구간 (서브트리 조회가 배열 구간 하나)
+ *  => 자식은 i+1 부터 end[j]로 건너뛰며 (손자 이하 서브트리를 건너뜀)
+ *  - ids, names, depths      : 노드 값
+ *  - parents                 : 부모 인덱스 (최상위면 -1)
+ *  - itemIds                 : 카테고리에 직접 걸린 상품 id (정렬)
+ *  - sortedIds / sortedIndex : id -> 인덱스 (이진 탐색)
+ *
+ * 만든 뒤에는 배열을 바꾸지 않고 밖으로도 복사본만 내보냄 => 락 없이 여러 스레드가 동시에 읽어도 됨
+ */
+public final class CategoryTree {
+
+    public static final CategoryTree EMPTY = of(List.of(), List.of());
+
+    private final long[] ids;
+    private final String[] names;
+    private final int[] depths;
+    private final int[] parents;
+    private final int[] ends;
+    private final long[][] itemIds;
+    private final long[] sortedIds;
+    private final int[] sortedIndex;
+
+    private CategoryTree(long[] ids, String[] names, int[] depths, int[] parents, int[] ends, long[][] itemIds) {
+        this.ids = ids;
+        this.names = names;
+        this.depths = depths;
+        this.parents = parents;
+        this.ends = ends;
+        this.itemIds = itemIds;
+
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+        this.sortedIds = new long[ids.length];
+        this.sortedIndex = new int[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedIds[i] = ids[order[i]];
+            sortedIndex[i] = order[i];
+        }
+    }
+
+    /**
+     * @param rows  전체 카테고리 (부모가 목록에 없으면 최상위로)
+     * @param links 카테고리-상품 연결
+     */
+    public static CategoryTree of(List<CategoryTreeRow> rows, List<CategoryItemLink> links) {
+        Map<Long, List<CategoryTreeRow>> childrenByParent = new HashMap<>();
+        List<CategoryTreeRow> roots = new ArrayList<>();
+        Map<Long, CategoryTreeRow> rowById = new HashMap<>();
+        rows.forEach(row -> rowById.put(row.id(), row));
+        for (CategoryTreeRow row : rows) {
+            if (row.parentId() == null || !rowById.containsKey(row.parentId())) {
+                roots.add(row);
+            } else {
+                childrenByParent.computeIfAbsent(row.parentId(), k -> new ArrayList<>()).add(row);
+            }
+        }
+        Map<Long, List<Long>> itemsByCategory = new HashMap<>();
+        links.forEach(link -> itemsByCategory.computeIfAbsent(link.categoryId(), k -> new ArrayList<>()).add(link.itemId()));
+
+        // 전위 순회로 배치 (재귀 대신 스택 => 트리가 깊어도 StackOverflow 없음)
+        int n = rows.size();
+        long[] ids = new long[n];
+        String[] names = new String[n];
+        int[] depths = new int[n];
+        int[] parents = new int[n];
+        int[] ends = new int[n];
+        long[][] itemIds = new long[n][];
+        int size = 0;
+
+        Deque<Object[]> stack = new ArrayDeque<>(); // {row, 부모 인덱스}
+        for (int r = roots.size() - 1; r >= 0; r--) {
+            stack.push(new Object[]{roots.get(r), -1});
+        }
+        Deque<Integer> open = new ArrayDeque<>(); // 서브트리가 아직 안끝난 조상 인덱스
+        while (!stack.isEmpty()) {
+            Object[] next = stack.pop();
+            CategoryTreeRow row = (CategoryTreeRow) next[0];
+            int parent = (int) next[1];
+            while (!open.isEmpty() && open.peek() != parent) {
+                ends[open.pop()] = size; // 부모가 아닌 열린 노드는 서브트리가 끝남
+            }
+
+            int index = size++;
+            ids[index] = row.id();
+            names[index] = row.name();
+            parents[index] = parent;
+            depths[index] = parent < 0 ? 0 : depths[parent] + 1;
+            itemIds[index] = itemsByCategory.getOrDefault(row.id(), List.of()).stream()
+                    .mapToLong(Long::longValue).sorted().distinct().toArray();
+            open.push(index);
+
+            List<CategoryTreeRow> children = childrenByParent.getOrDefault(row.id(), List.of());
+            for (int c = children.size() - 1; c >= 0; c--) {
+                stack.push(new Object[]{children.get(c), index});
+            }
+        }
+        while (!open.isEmpty()) {
+            ends[open.pop()] = size;
+        }
+
+        // 순환(부모를 따라가면 자기 자신)이 있는 행은 최상위에서 닿지 않으므로 빠짐
+        return new CategoryTree(Arrays.copyOf(ids, size), Arrays.copyOf(names, size), Arrays.copyOf(depths, size),
+                Arrays.copyOf(parents, size), Arrays.copyOf(ends, size), Arrays.copyOf(itemIds, size));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(Long categoryId) {
+        return indexOf(categoryId) >= 0;
+    }
+
+    /**
+     * 최상위 카테고리들
+     */
+    public List<Node> roots() {
+        List<Node> roots = new ArrayList<>();
+        for (int i = 0; i < ids.length; i = ends[i]) {
+            roots.add(node(i));
+        }
+        return roots;
+    }
+
+    /**
+     * 바로 아래 자식들 (없는 id면 빈 목록)
+     */
+    public List<Node> children(Long categoryId) {
+        int index = indexOf(categoryId);
+        if (index < 0) {
+            return List.of();
+        }
+        List<Node> children = new ArrayList<>();
+        for (int i = index + 1; i < ends[index]; i = ends[i]) {
+            children.add(node(i));
+        }
+        return children;
+    }
+
+    /**
+     * 조상 id : 부모부터 최상위까지
+     */
+    public List<Long> ancestorIds(Long categoryId) {
+        List<Long> ancestors = new ArrayList<>();
+        int index = indexOf(categoryId);
+        for (int i = index < 0 ? -1 : parents[index]; i >= 0; i = parents[i]) {
+            ancestors.add(ids[i]);
+        }
+        return ancestors;
+    }
+
+    /**
+     * 자손 id : 자기 자신 제외, 전위 순서
+     */
+    public List<Long> descendantIds(Long categoryId) {
+        int index = indexOf(categoryId);
+        if (index < 0) {
+            return List.of();
+        }
+        List<Long> descendants = new ArrayList<>(ends[index] - index - 1);
+        for (int i = index + 1; i < ends[index]; i++) {
+            descendants.add(ids[i]);
+        }
+        return descendants;
+    }
+
+    /**
+     * 최상위부터 자기 자신까지 (ex: 도서 > IT > JPA)
+     */
+    public List<Node> breadcrumb(Long categoryId) {
+        List<Node> path = new ArrayList<>();
+        for (int i = indexOf(categoryId); i >= 0; i = parents[i]) {
+            path.add(node(i));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * 서브트리(자기 자신 포함)에 걸린 상품 id (중복 없이 정렬)
+     */
+    public long[] itemIdsInSubtree(Long categoryId) {
+        int index = indexOf(categoryId);
+        if (index < 0) {
+            return new long[0];
+        }
+        return Arrays.stream(itemIds, index, ends[index])
+                .flatMapToLong(Arrays::stream)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    private Node node(int index) {
+        return new Node(ids[index], names[index], depths[index], ends[index] - index - 1, itemIds[index].length);
+    }
+
+    private int indexOf(Long categoryId) {
+        if (categoryId == null) {
+            return -1;
+        }
+        int found = Arrays.binarySearch(sortedIds, categoryId);
+        return found < 0 ? -1 : sortedIndex[found];
+    }
+
+    /**
+     * @param descendantCount 자손 카테고리 수
+     * @param itemCount       직접 걸린 상품 수
+     */
+    public record Node(Long id, String name, int depth, int descendantCount, int itemCount) {
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 메모리 카테고리 트리 (네비게이션, 브레드크럼, 서브트리 상품)
+ *
+ * 카테고리 구조는 거의 안바뀌는데 화면마다 Category.child 를 하이버네이트로 따라가면 매번 지연로딩
+ * => 기동 시 전체를 불변 스냅샷(CategoryTree)으로 만들어 두고, 읽기는 DB 없이 스냅샷에서
+ *  - 읽기 : AtomicReference.get() 한번 => 락 없음, 한 요청 안에서는 snapshot() 하나로 여러번 조회하면 일관된 트리
+ *  - 변경 : CategoryChangedEvent 커밋 후 새 스냅샷을 통째로 만들어 교체 (copy-on-write)
+ *          재생성은 synchronized => 늦게 시작한 재생성이 먼저 끝나서 예전 트리로 덮어쓰지 않도록
+ *
+ * 재생성 비용 : 쿼리 2번 (카테고리, category_item), 카테고리 수만큼의 배열
+ * ApplicationRunner 라서 readiness(ACCEPTING_TRAFFIC) 전에 만들어짐
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryTreeService implements ApplicationRunner {
+
+    private final CategoryRepository categoryRepository;
+    private final AtomicReference<CategoryTree> snapshot = new AtomicReference<>(CategoryTree.EMPTY);
+
+    @Override
+    public void run(ApplicationArguments args) {
+        refresh();
+    }
+
+    // 트랜잭션 밖에서 발행된 경우(fallbackExecution)에도 재생성
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        refresh();
+    }
+
+    /**
+     * 현재 스냅샷 (불변)
+     */
+    public CategoryTree snapshot() {
+        return snapshot.get();
+    }
+
+    public synchronized void refresh() {
+        long start = System.nanoTime();
+        CategoryTree tree = CategoryTree.of(categoryRepository.findTreeRows(), categoryRepository.findItemLinks());
+        snapshot.set(tree);
+        log.info("카테고리 트리 스냅샷 교체 : {}개, {}ms", tree.size(), (System.nanoTime() - start) / 1_000_000.0);
+    }
+}
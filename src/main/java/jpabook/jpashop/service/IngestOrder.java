@@ -0,0 +1,18 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 대량 적재할 주문 한 건 (외부 시스템에서 넘어온 주문)
+ */
+@Getter
+@AllArgsConstructor
+public class IngestOrder {
+    private Long memberId;
+    private List<OrderLine> lines;
+    private LocalDateTime orderDate; // 원래 주문시간, 없으면 적재 시간
+}
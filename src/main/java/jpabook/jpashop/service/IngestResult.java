@@ -0,0 +1,59 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대량 적재 결과
+ * 거절된 주문만 (요청 순번, 사유)로 돌려줌 => 나머지는 모두 적재된 것
+ * 스트리밍으로 수백만 건을 받으면 거절도 많을 수 있으므로 앞에서부터 MAX_REJECTED 개만 담고 건수는 따로
+ */
+@Getter
+public class IngestResult {
+
+    static final int MAX_REJECTED = 1000;
+
+    private int accepted;
+    private int rejectedCount;
+    private final List<Rejected> rejected = new ArrayList<>();
+    private long rows;          // insert 된 row 수 (주문 + 배송 + 주문상품)
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private Integer abortedAt;  // 본문을 끝까지 못 읽었으면 읽지 못한 주문 순번 (그 앞까지만 적재됨)
+    private String abortReason;
+
+    void accept(int orderItemCount) {
+        accepted++;
+        rows += 2 + orderItemCount;
+    }
+
+    void reject(int index, String reason) {
+        rejectedCount++;
+        if (rejected.size() < MAX_REJECTED) {
+            rejected.add(new Rejected(index, reason));
+        }
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * 요청 본문을 읽다가 중간에 멈춘 경우 (ex: 잘못된 JSON) => index 부터는 적재도 거절도 안된 것
+     */
+    public void abort(int index, String reason) {
+        this.abortedAt = index;
+        this.abortReason = reason;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Rejected {
+        private int index;
+        private String reason;
+    }
+}
@@ -14,9 +14,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemService {
     private final ItemRepository itemRepository;
+    private final StockReservationEngine stockReservationEngine;
 
     @Transactional
     public void saveItem(Item item) {
+        if (item.getId() != null && stockReservationEngine.isEnabled()) {
+            // merge가 재고를 덮어쓰지 않도록 DB 값을 그대로 두고, 입력한 재고와의 차이만 커밋 후 엔진으로 반영
+            int delta = item.getStockQuantity() - stockReservationEngine.available(item.getId());
+            item.setStockQuantity(itemRepository.findOne(item.getId()).getStockQuantity());
+            stockReservationEngine.adjustAfterCommit(item.getId(), delta);
+        }
         itemRepository.save(item);
     }
     /* JPA에서 update 하는방법1 : 변경감지 (Best Practice) */
@@ -28,7 +35,13 @@ public class ItemService {
         // => setter없이 엔티티 안에서 바로 추적 가능한 메서드를 만드는게 유지보수하기 좋음!!
         findItem.setPrice(param.getPrice());
         findItem.setName(param.getName());
-        findItem.setStockQuantity(param.getStockQuantity());
+        if (stockReservationEngine.isEnabled()) {
+            // 엔진을 켜면 재고는 엔진으로만 : 입력한 재고와 지금 주문 가능 수량의 차이를 커밋 후 반영
+            // (절대값으로 덮어쓰면 수정 중에 들어온 예약분이 write-back 때 한번 더 빠져서 입력한 값이 남지 않음)
+            stockReservationEngine.adjustAfterCommit(itemId, param.getStockQuantity() - stockReservationEngine.available(itemId));
+        } else {
+            findItem.setStockQuantity(param.getStockQuantity());
+        }
         //  itemRepository.save(findItem);  // save, persist 등등 호출할 필요없음!!!!
         /*
             이미 findItem으로 영속상태 엔티티를 가져왔고,
@@ -0,0 +1,45 @@
+package jpabook.jpashop.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 회원 CSV 한줄 파싱 (RFC 4180 : 쉼표 구분, 큰따옴표로 감싼 값 안의 쉼표 / "" 이스케이프)
+ * 값 안의 줄바꿈은 지원하지 않음 => 따옴표가 안닫히면 그 줄만 거절
+ */
+final class MemberCsvParser {
+
+    private MemberCsvParser() {
+    }
+
+    static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("따옴표가 닫히지 않았습니다.");
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
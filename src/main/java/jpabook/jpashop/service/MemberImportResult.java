@@ -0,0 +1,51 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 회원 CSV 적재 결과
+ * 거절된 행은 (줄 번호, 사유)로, 수백만 줄에서 거절이 많을 수 있으므로 앞에서부터 MAX_REJECTED 개만 담고 건수는 따로
+ */
+@Getter
+public class MemberImportResult {
+
+    static final int MAX_REJECTED = 1000;
+
+    private long lines;         // 헤더 제외 읽은 줄 수
+    private long imported;
+    private long rejectedCount;
+    private final List<Rejected> rejected = new ArrayList<>();
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    void read() {
+        lines++;
+    }
+
+    void accept(int count) {
+        imported += count;
+    }
+
+    void reject(long line, String reason) {
+        rejectedCount++;
+        if (rejected.size() < MAX_REJECTED) {
+            rejected.add(new Rejected(line, reason));
+        }
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos == 0 ? 0 : imported * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Rejected {
+        private long line;
+        private String reason;
+    }
+}
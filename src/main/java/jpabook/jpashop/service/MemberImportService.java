@@ -0,0 +1,198 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberNameGramRepository;
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 제휴사 회원 CSV 대량 적재 (name,city,street,zipcode / 첫 줄이 name 으로 시작하면 헤더)
+ *
+ * 수백만 줄 파일을 List로 다 읽고 회원마다 join() 하면 메모리에 파일 전체 + 회원마다 existsByName + insert 한줄씩
+ * => 한줄씩 읽어서 chunk가 차면 바로 적재하고 버림 (메모리는 chunk 크기만큼만)
+ *    - 중복검사 : chunk 안은 HashSet, db는 chunk당 where name in (...) 한번 (Bloom filter로 확실히 없는 이름은 빼고)
+ *    - insert는 hibernate.jdbc.batch_size + order_inserts 로 JDBC batch (Member id는 시퀀스라 batch가 안끊김)
+ *    - chunk 하나가 트랜잭션 하나, 끝날때마다 flush/clear
+ *
+ * 잘못된 줄(파싱 실패, 이름 없음, 중복)은 그 줄만 거절하고 계속 적재
+ * 다른 요청이 같은 이름을 먼저 넣어서 chunk가 uk_member_name 에 걸리면 중복검사부터 한번 더, 그래도 실패하면 chunk 전체 거절
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberImportService {
+
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int PROGRESS_EVERY_CHUNKS = 100; // chunk마다 로그를 남기면 수천줄
+
+    private final EntityManager em;
+    private final MemberRepository memberRepository;
+    private final MemberNameGramRepository memberNameGramRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final PlatformTransactionManager transactionManager;
+
+    public MemberImportResult importCsv(Reader source, int chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다.");
+        }
+        long start = System.nanoTime();
+        MemberImportResult result = new MemberImportResult();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        try (BufferedReader reader = new BufferedReader(source)) {
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            Set<String> namesInChunk = new HashSet<>();
+            long lineNumber = 0;
+            long chunks = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && isHeader(line))) {
+                    continue;
+                }
+                result.read();
+                Row row = parse(lineNumber, line, result);
+                if (row == null) {
+                    continue;
+                }
+                if (!namesInChunk.add(row.name())) {
+                    result.reject(lineNumber, "파일 안에서 중복된 회원 입니다.");
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, tx, result);
+                    chunk.clear();
+                    namesInChunk.clear();
+                    if (++chunks % PROGRESS_EVERY_CHUNKS == 0) {
+                        log.info("회원 적재 진행 {}줄 (적재 {}, 거절 {})", lineNumber, result.getImported(), result.getRejectedCount());
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, tx, result);
+            }
+        }
+
+        result.finish(System.nanoTime() - start);
+        log.info("회원 적재 완료 : {}건 적재, {}건 거절, {} rows/s",
+                result.getImported(), result.getRejectedCount(), (long) result.getRowsPerSecond());
+        return result;
+    }
+
+    private static boolean isHeader(String line) {
+        try {
+            return MemberCsvParser.parse(line).get(0).equalsIgnoreCase("name");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static Row parse(long lineNumber, String line, MemberImportResult result) {
+        List<String> fields;
+        try {
+            fields = MemberCsvParser.parse(line);
+        } catch (IllegalArgumentException e) {
+            result.reject(lineNumber, e.getMessage());
+            return null;
+        }
+        if (fields.size() > 4) {
+            result.reject(lineNumber, "컬럼 수가 맞지 않습니다.");
+            return null;
+        }
+        String name = fields.get(0);
+        if (name.isEmpty()) {
+            result.reject(lineNumber, "이름이 없습니다.");
+            return null;
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            result.reject(lineNumber, "이름이 너무 깁니다.");
+            return null;
+        }
+        String city = field(fields, 1);
+        String street = field(fields, 2);
+        String zipcode = field(fields, 3);
+        Address address = city == null && street == null && zipcode == null ? null : new Address(city, street, zipcode);
+        return new Row(lineNumber, name, address);
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() && StringUtils.hasText(fields.get(index)) ? fields.get(index) : null;
+    }
+
+    private void importChunk(List<Row> chunk, TransactionTemplate tx, MemberImportResult result) {
+        for (int attempt = 1; ; attempt++) {
+            List<Row> rejected = new ArrayList<>();
+            List<Member> imported = new ArrayList<>();
+            try {
+                tx.executeWithoutResult(status -> persistChunk(chunk, rejected, imported));
+            } catch (RuntimeException e) {
+                if (attempt == 1 && isDuplicateName(e)) {
+                    // 중복검사와 insert 사이에 다른 요청이 같은 이름을 넣음 => 다시 조회하면 그 이름은 거절로 빠짐
+                    log.warn("회원 적재 chunk 이름 중복, 재시도 (line {}~)", chunk.get(0).line());
+                    continue;
+                }
+                log.error("회원 적재 chunk 실패 (line {}~)", chunk.get(0).line(), e);
+                chunk.forEach(row -> result.reject(row.line(), "chunk 적재 실패 : " + e.getMessage()));
+                return;
+            }
+            // 커밋된 뒤에 필터에 넣음 (롤백된 이름이 남으면 오탐만 늘어남)
+            imported.forEach(member -> memberNameFilter.put(member.getName()));
+            rejected.forEach(row -> result.reject(row.line(), "이미 존재하는 회원 입니다."));
+            result.accept(imported.size());
+            return;
+        }
+    }
+
+    private void persistChunk(List<Row> chunk, List<Row> rejected, List<Member> imported) {
+        // Bloom filter가 확실히 없다고 하는 이름은 in 절에서 뺌 (새 회원만 있는 파일이면 쿼리 자체가 없음)
+        List<String> maybeExisting = chunk.stream()
+                .map(Row::name)
+                .filter(memberNameFilter::mightContain)
+                .toList();
+        Set<String> existing = maybeExisting.isEmpty() ? Set.of() : new HashSet<>(memberRepository.findExistingNames(maybeExisting));
+        for (int i = existing.size(); i < maybeExisting.size(); i++) {
+            memberNameFilter.recordFalsePositive();
+        }
+
+        for (Row row : chunk) {
+            if (existing.contains(row.name())) {
+                rejected.add(row);
+                continue;
+            }
+            Member member = new Member();
+            member.setName(row.name());
+            member.setAddress(row.address());
+            em.persist(member);
+            memberNameGramRepository.index(member); // id는 persist 시점에 시퀀스에서 할당됨
+            imported.add(member);
+        }
+
+        em.flush();
+        em.clear();
+    }
+
+    private static boolean isDuplicateName(RuntimeException e) {
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase().contains(Member.UK_NAME);
+    }
+
+    private record Row(long line, String name, Address address) {
+    }
+}
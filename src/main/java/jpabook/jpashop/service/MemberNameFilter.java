@@ -0,0 +1,130 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 가입된 회원 이름 Bloom filter (회원가입 중복검사 앞단)
+ *
+ * "없다"는 대답은 확실함 (넣은 이름은 항상 있다고 나옴) => 중복검사 쿼리 없이 바로 가입
+ * "있을 수 있다"는 대답은 오탐 가능 => existsByName 으로 확인
+ *
+ *  - 크기 : 예상 이름 수 n, 오탐률 p 로 비트 수 m = -n ln p / (ln 2)^2, 해시 수 k = m/n ln 2
+ *          (1000만명, 1% => 약 12MB) 예상보다 많이 들어가면 오탐률만 올라가고 틀린 "없다"는 안나옴
+ *  - 해시 : 64bit 해시 하나로 h1 + i*h2 (double hashing)
+ *  - 동시성 : 비트 배열은 AtomicLongArray, 넣기는 OR 누적 => 락 없음
+ *  - 이름은 지우지 않음 (이름 변경 후 예전 이름은 오탐이 될 뿐)
+ *
+ * 기동 시 DB의 이름을 다 넣기 전(ready 전)에는 항상 "있을 수 있다" => 쿼리로 확인
+ * 다른 서버에서 가입한 이름은 모르므로 여기서 "없다"가 나와도 최종 방어는 unique 제약조건(uk_member_name)
+ *
+ * 메트릭 : jpashop.member.name_filter{result=absent|maybe}, jpashop.member.name_filter.false_positive
+ */
+public class MemberNameFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean ready;
+
+    private final Counter absent;
+    private final Counter maybe;
+    private final Counter falsePositive;
+
+    public MemberNameFilter(long expectedNames, double falsePositiveRate, MeterRegistry meterRegistry) {
+        long n = Math.max(1, expectedNames);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2)));
+        this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * LN2));
+
+        this.absent = meterRegistry.counter("jpashop.member.name_filter", "result", "absent");
+        this.maybe = meterRegistry.counter("jpashop.member.name_filter", "result", "maybe");
+        this.falsePositive = meterRegistry.counter("jpashop.member.name_filter.false_positive");
+    }
+
+    public void put(String name) {
+        if (name == null) {
+            return;
+        }
+        long hash = hash(name);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1; // 홀수 => 인덱스가 한곳에 몰리지 않음
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(hash + i * h2, bitCount);
+            long mask = 1L << index; // shift는 하위 6bit만 씀
+            bits.getAndAccumulate((int) (index >>> 6), mask, (word, m) -> word | m);
+        }
+    }
+
+    /**
+     * @return false면 확실히 없는 이름
+     */
+    public boolean mightContain(String name) {
+        if (!ready || name == null) {
+            maybe.increment();
+            return true;
+        }
+        long hash = hash(name);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(hash + i * h2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                absent.increment();
+                return false;
+            }
+        }
+        maybe.increment();
+        return true;
+    }
+
+    /**
+     * "있을 수 있다" 였는데 실제로는 없었음 (오탐률 확인용)
+     */
+    public void recordFalsePositive() {
+        if (ready) {
+            falsePositive.increment();
+        }
+    }
+
+    /**
+     * DB의 이름을 다 넣었음 => 이제부터 "없다"를 믿어도 됨
+     */
+    public void markReady() {
+        this.ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // FNV-1a 64bit + murmur3 finalizer
+    private static long hash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
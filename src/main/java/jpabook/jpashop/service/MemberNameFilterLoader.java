@@ -0,0 +1,51 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.config.MemberProperties;
+import jpabook.jpashop.repository.MemberNameRow;
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 기동 시 DB의 회원 이름을 MemberNameFilter에 채움
+ * id 키셋으로 chunk씩 (offset 없이 PK 인덱스 구간 조회 => 회원이 수천만이어도 chunk마다 비용 일정)
+ * 채우는 동안 가입한 이름은 MemberService가 바로 넣으므로 빠지는 이름 없음
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberNameFilterLoader implements ApplicationRunner {
+
+    private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final MemberProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        int chunkSize = properties.getNameFilter().getLoadChunkSize();
+        long count = 0;
+        Long afterId = 0L;
+        List<MemberNameRow> rows;
+        do {
+            rows = memberRepository.findNamesAfter(afterId, PageRequest.ofSize(chunkSize));
+            for (MemberNameRow row : rows) {
+                memberNameFilter.put(row.name());
+            }
+            count += rows.size();
+            if (!rows.isEmpty()) {
+                afterId = rows.get(rows.size() - 1).id();
+            }
+        } while (rows.size() == chunkSize);
+
+        memberNameFilter.markReady();
+        log.info("회원 이름 필터 준비 : {}명, {}bit x {}해시, {}ms",
+                count, memberNameFilter.getBitCount(), memberNameFilter.getHashCount(), System.currentTimeMillis() - start);
+    }
+}
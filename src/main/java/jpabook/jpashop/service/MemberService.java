@@ -1,13 +1,17 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberNameGramRepository;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.order.simpleQuery.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 /**
@@ -53,25 +57,51 @@ public class MemberService {
 
     // final 키워드를 사용하면, 초기화가 안되어있는 경우 컴파일에러로 알려줌.
     private final MemberRepository memberRepository;
+    private final MemberNameGramRepository memberNameGramRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final OrderSummaryRepository orderSummaryRepository;
 
     /**
      * 회원 가입
-     *  - 중복이름 검사
+     *  - 중복이름 검사 : Bloom filter => (있을 수 있으면) existsByName => unique 제약조건
      */
     @Transactional // 따로 @Transactional을 선언하는 경우, 우선권을 가짐 ! readonly=true 설정에서 제외됨
     public Long join(Member member){
-        validateDuplicateMember(member); // 중복 회원 검증
-        memberRepository.save(member);
+        validateDuplicateMember(member.getName()); // 중복 회원 검증
+        flushUnique(() -> memberRepository.saveAndFlush(member));
+        memberNameFilter.put(member.getName());
+        memberNameGramRepository.index(member); // 이름 부분일치 검색 색인
         return member.getId();
     }
 
-    private void validateDuplicateMember(Member member) {
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if(!findMembers.isEmpty())
+    private void validateDuplicateMember(String name) {
+        if (!memberNameFilter.mightContain(name)) {
+            return; // 확실히 없는 이름 => 쿼리 없이 통과
+        }
+        // 엔티티를 다 읽어오지 않고 있는지만 확인 (findByName 은 같은 이름 회원을 전부 로딩)
+        if (memberRepository.existsByName(name)) {
             throw new IllegalStateException("이미 존재하는 회원 입니다.");
+        }
+        memberNameFilter.recordFalsePositive();
         // 사실 이렇게해도 중복으로 들어가능 장애가 발생할 수 있음.
         // 멀티쓰레드,, 다중 was에 서비스가 올라와있는 경우 동시성 이슈발생
-        // => 최후의 방어로직으로 database에도 unique 제약조건을 걸어둬야함.
+        // => 최후의 방어로직으로 database에 unique 제약조건(uk_member_name)을 걸어둠 => flushUnique
+    }
+
+    /**
+     * 바로 flush 해서 unique 제약조건 위반을 여기서 받아 같은 예외로 바꿈
+     * (커밋 시점까지 미루면 트랜잭션 매니저가 다른 예외로 감싸서 던짐)
+     */
+    private void flushUnique(Runnable save) {
+        try {
+            save.run();
+        } catch (DataIntegrityViolationException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message != null && message.toLowerCase().contains(Member.UK_NAME)) {
+                throw new IllegalStateException("이미 존재하는 회원 입니다.", e);
+            }
+            throw e;
+        }
     }
     // 회원 전체 조회
 
@@ -88,7 +118,14 @@ public class MemberService {
     public void update(Long id, String name) {
         // 엔티티를 업데이트할 땐 변경감지로 업데이트할 것!!
         Member member = memberRepository.findById(id).get();
-        member.setName(name);
+        if (!Objects.equals(member.getName(), name)) {
+            validateDuplicateMember(name);
+            member.setName(name);
+            flushUnique(memberRepository::flush);
+            memberNameFilter.put(name);
+            memberNameGramRepository.reindex(member);
+            orderSummaryRepository.updateMemberName(id, name); // 주문 목록 요약의 회원이름도 같은 트랜잭션으로
+        }
         /*
         동작 요약
         1. 트랜잭션 시작
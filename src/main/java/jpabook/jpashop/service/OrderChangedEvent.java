@@ -0,0 +1,14 @@
+package jpabook.jpashop.service;
+
+/**
+ * 주문이 생성/취소됨 (조회 결과 캐시 무효화용)
+ * 트랜잭션 안에서 발행하고, 리스너는 커밋된 뒤에 처리
+ *
+ * @param orderId 대량 적재처럼 여러 주문이 한번에 바뀐 경우 null
+ */
+public record OrderChangedEvent(Long orderId, Type type) {
+
+    public enum Type {
+        ORDERED, CANCELED
+    }
+}
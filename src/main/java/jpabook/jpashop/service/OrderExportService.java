@@ -0,0 +1,43 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 주문 전체 export (NDJSON : 한줄에 주문 하나씩 json)
+ * 결과를 List로 모아두지 않고, 주문 하나가 완성될 때마다 바로 OutputStream에 써버림
+ * => 주문이 몇백만건이어도 힙 사용량이 일정함
+ */
+@Service
+@Transactional(readOnly = true) // 스트림을 다 읽을때까지 커넥션/트랜잭션 유지
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final int CLEAR_SIZE = 1000;
+    private static final byte NEW_LINE = '\n';
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @return export 한 주문 수
+     */
+    public long exportOrders(OutputStream out) {
+        return orderQueryRepository.forEachByDto_flat(CLEAR_SIZE, order -> {
+            try {
+                // writeValue(out, ..)는 스트림을 닫아버리기 때문에 bytes로 받아서 직접 씀
+                out.write(objectMapper.writeValueAsBytes(order));
+                out.write(NEW_LINE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.config.StockProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 주문/취소 + 낙관적 락 충돌 재시도
+ *
+ * 충돌은 커밋(flush) 시점에 나고, 그때는 트랜잭션이 이미 롤백 대상이라 같은 트랜잭션 안에서 다시 할 수 없음
+ * => 트랜잭션 바깥(이 클래스)에서 OrderService 호출을 통째로 다시 실행
+ *    (그래서 이 클래스에는 @Transactional을 붙이지 않음)
+ *
+ * 재시도는 최대 maxRetries 번, 모두 실패하면 마지막 예외를 그대로 던짐
+ * 메트릭 : jpashop.stock.conflict{result=retried|aborted}
+ *
+ * 예약 엔진을 켜면 재고는 트랜잭션을 열기 전에 여기서 먼저 예약 (admission)
+ * => 품절이면 트랜잭션도 커넥션도 없이 NotEnoughStockException, 주문이 끝내 실패하면 예약을 되돌림
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderFacade {
+
+    private final OrderService orderService;
+    private final StockReservationEngine stockReservationEngine;
+    private final StockProperties stockProperties;
+    private final MeterRegistry meterRegistry;
+
+    public Long order(Long memberId, Long itemId, int count) {
+        if (stockReservationEngine.isEnabled()) {
+            return orderReserved(memberId, new TreeMap<>(Map.of(itemId, count)));
+        }
+        return retryOnConflict(() -> orderService.order(memberId, itemId, count));
+    }
+
+    public Long order(Long memberId, List<OrderLine> lines) {
+        if (stockReservationEngine.isEnabled()) {
+            return orderReserved(memberId, OrderLine.countByItem(lines));
+        }
+        return retryOnConflict(() -> orderService.order(memberId, lines));
+    }
+
+    // 커밋되면 예약 확정, 재시도까지 다 실패하면 finally에서 되돌림
+    private Long orderReserved(Long memberId, SortedMap<Long, Integer> countByItem) {
+        StockReservation reservation = stockReservationEngine.reserveAll(countByItem);
+        try {
+            return retryOnConflict(() -> orderService.order(memberId, reservation));
+        } finally {
+            reservation.releaseUnlessCommitted();
+        }
+    }
+
+    public void cancelOrder(Long orderId) {
+        retryOnConflict(() -> {
+            orderService.cancelOrder(orderId);
+            return null;
+        });
+    }
+
+    private <T> T retryOnConflict(Supplier<T> action) {
+        StockProperties.Concurrency concurrency = stockProperties.getConcurrency();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= concurrency.getMaxRetries()) {
+                    meterRegistry.counter("jpashop.stock.conflict", "result", "aborted").increment();
+                    log.warn("재고 충돌로 주문 실패 ({}회 재시도)", attempt);
+                    throw e;
+                }
+                meterRegistry.counter("jpashop.stock.conflict", "result", "retried").increment();
+                backoff(concurrency.getBackoffMs(), attempt);
+            }
+        }
+    }
+
+    // OrderIngestService 의 chunk 재시도도 같이 씀
+    static void backoff(long backoffMs, int attempt) {
+        if (backoffMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs * (attempt + 1) + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("주문 재시도 중 인터럽트", e);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
+import jpabook.jpashop.config.StockProperties;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.order.simpleQuery.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 대량 적재 (외부 시스템 주문 replay)
+ *
+ * 주문 하나씩 POST /order 하면 주문마다 트랜잭션 + insert가 한줄씩 나감
+ * => chunk 단위로 트랜잭션을 묶고
+ *    - 회원/상품은 chunk 마다 in 쿼리 한번으로 조회
+ *    - insert는 hibernate.jdbc.batch_size + order_inserts 로 JDBC batch
+ *    - chunk 끝날때마다 flush/clear 해서 영속성 컨텍스트가 커지지 않도록 (OSIV면 요청 내내 유지되므로 더 중요)
+ *
+ * 잘못된 주문(회원/상품 없음, 재고 부족)은 그 주문만 거절하고 나머지는 계속 적재
+ * 재고 동시성은 주문과 같은 설정(jpashop.stock.concurrency)을 따름
+ *  - PESSIMISTIC : chunk의 상품을 select ... for update 로 읽음
+ *  - 그 외 : 동시 주문과 Item @Version 이 충돌하면 OrderFacade 처럼 chunk 트랜잭션을 maxRetries 번까지 다시 실행
+ * chunk 트랜잭션 자체가 실패하면(재시도까지) 그 chunk의 주문은 모두 거절로 처리
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderIngestService {
+
+    private final EntityManager em;
+    private final OrderRepository orderRepository;
+    private final MemberRepository memberRepository;
+    private final ItemRepository itemRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final StockReservationEngine stockReservationEngine;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockProperties stockProperties;
+    private final MeterRegistry meterRegistry;
+
+    public IngestResult ingest(List<IngestOrder> orders, int chunkSize) {
+        return ingest(orders.iterator(), chunkSize);
+    }
+
+    /**
+     * 주문을 하나씩 받아서 chunk가 차면 바로 적재하고 버림
+     * => 요청 본문을 스트리밍으로 읽어서 넘기면 전체 주문을 List로 들고 있지 않음 (메모리는 chunk 크기만큼)
+     */
+    public IngestResult ingest(Iterator<IngestOrder> orders, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다.");
+        }
+        long start = System.nanoTime();
+        IngestResult result = new IngestResult();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        List<IngestOrder> chunk = new ArrayList<>(chunkSize);
+        int offset = 0;
+        while (orders.hasNext()) {
+            chunk.add(orders.next());
+            if (chunk.size() == chunkSize || !orders.hasNext()) {
+                ingestChunk(chunk, offset, tx, result);
+                offset += chunk.size();
+                chunk.clear();
+                log.info("주문 적재 진행 {}건 (적재 {}, 거절 {})", offset, result.getAccepted(), result.getRejectedCount());
+            }
+        }
+
+        result.finish(System.nanoTime() - start);
+        log.info("주문 적재 완료 : {}건 적재, {}건 거절, {} rows/s",
+                result.getAccepted(), result.getRejectedCount(), (long) result.getRowsPerSecond());
+        return result;
+    }
+
+    private void ingestChunk(List<IngestOrder> chunk, int offset, TransactionTemplate tx, IngestResult result) {
+        boolean reserve = stockReservationEngine.isEnabled();
+
+        // 1. 기본 검증 + (예약 엔진 사용 시) 트랜잭션 밖에서 재고 예약
+        Map<Integer, SortedMap<Long, Integer>> valid = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            IngestOrder order = chunk.get(i);
+            if (order.getMemberId() == null || order.getLines() == null || order.getLines().isEmpty()) {
+                result.reject(offset + i, "회원 또는 주문상품이 없습니다.");
+                continue;
+            }
+            if (order.getLines().stream().anyMatch(line -> line.getItemId() == null || line.getCount() <= 0)) {
+                result.reject(offset + i, "잘못된 주문상품 입니다.");
+                continue;
+            }
+            SortedMap<Long, Integer> countByItem = new TreeMap<>();
+            order.getLines().forEach(line -> countByItem.merge(line.getItemId(), line.getCount(), Integer::sum));
+            if (reserve) {
+                try {
+                    reserveAll(countByItem);
+                } catch (NotEnoughStockException | IllegalArgumentException e) {
+                    result.reject(offset + i, e.getMessage());
+                    continue;
+                }
+            }
+            valid.put(i, countByItem);
+        }
+
+        // 2. chunk 하나를 트랜잭션 하나로 적재, 낙관적 락 충돌이면 다시
+        ChunkOutcome outcome = new ChunkOutcome();
+        StockProperties.Concurrency concurrency = stockProperties.getConcurrency();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                tx.executeWithoutResult(status -> persistChunk(chunk, valid, reserve, outcome));
+                break;
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) { // chunk 안 flush 충돌은 변환되지 않은 JPA 예외로
+                if (attempt >= concurrency.getMaxRetries()) {
+                    meterRegistry.counter("jpashop.stock.conflict", "result", "aborted").increment();
+                    rejectChunk(valid, offset, reserve, outcome, e, result);
+                    return;
+                }
+                meterRegistry.counter("jpashop.stock.conflict", "result", "retried").increment();
+                log.info("주문 적재 chunk 재고 충돌, 재시도 (offset={}, attempt={})", offset, attempt + 1);
+                outcome.rollback(valid);
+                OrderFacade.backoff(concurrency.getBackoffMs(), attempt);
+            } catch (RuntimeException e) {
+                rejectChunk(valid, offset, reserve, outcome, e, result);
+                return;
+            }
+        }
+        outcome.rejected.forEach((i, reason) -> result.reject(offset + i, reason));
+        outcome.accepted.forEach(result::accept);
+    }
+
+    // 롤백된 chunk : 예약을 아직 안 되돌린 주문은 되돌리고 전부 거절
+    private void rejectChunk(Map<Integer, SortedMap<Long, Integer>> valid, int offset, boolean reserve,
+                             ChunkOutcome outcome, RuntimeException e, IngestResult result) {
+        log.error("주문 적재 chunk 실패 (offset={})", offset, e);
+        outcome.released.forEach(i -> result.reject(offset + i, outcome.rejected.get(i)));
+        valid.forEach((i, countByItem) -> {
+            if (outcome.released.contains(i)) {
+                return;
+            }
+            if (reserve) {
+                releaseAll(countByItem);
+            }
+            result.reject(offset + i, "chunk 적재 실패 : " + e.getMessage());
+        });
+    }
+
+    private void persistChunk(List<IngestOrder> chunk, Map<Integer, SortedMap<Long, Integer>> valid,
+                              boolean reserve, ChunkOutcome outcome) {
+        Set<Long> memberIds = new HashSet<>();
+        Set<Long> itemIds = new HashSet<>();
+        valid.forEach((i, countByItem) -> {
+            memberIds.add(chunk.get(i).getMemberId());
+            itemIds.addAll(countByItem.keySet());
+        });
+        Map<Long, Member> members = memberRepository.findAllById(memberIds).stream()
+                .collect(Collectors.toMap(Member::getId, Function.identity()));
+        Map<Long, Item> items = itemIds.isEmpty() ? Map.of() : itemRepository.findAllByIds(itemIds, itemLockMode(reserve)).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        valid.forEach((i, countByItem) -> {
+            IngestOrder ingestOrder = chunk.get(i);
+            String reason = validate(members.get(ingestOrder.getMemberId()), countByItem, items, reserve);
+            if (reason != null) {
+                if (reserve) {
+                    releaseAll(countByItem);
+                    outcome.released.add(i);
+                }
+                outcome.rejected.put(i, reason);
+                return;
+            }
+
+            Member member = members.get(ingestOrder.getMemberId());
+            List<OrderItem> orderItems = new ArrayList<>();
+            countByItem.forEach((itemId, count) -> {
+                Item item = items.get(itemId);
+                orderItems.add(reserve
+                        ? OrderItem.createReservedOrderItem(item, item.getPrice(), count)
+                        : OrderItem.createOrderItem(item, item.getPrice(), count));
+            });
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            Order order = Order.createOrder(member, delivery, orderItems.toArray(new OrderItem[0]));
+            if (ingestOrder.getOrderDate() != null) {
+                order.setOrderDate(ingestOrder.getOrderDate());
+            }
+            orderRepository.save(order);
+            orderSummaryRepository.save(OrderSummary.of(order));
+            outcome.accepted.add(orderItems.size());
+        });
+
+        em.flush();
+        em.clear();
+        if (!outcome.accepted.isEmpty()) {
+            // chunk 커밋되면 조회 캐시 무효화 (주문마다가 아니라 chunk당 한번)
+            eventPublisher.publishEvent(new OrderChangedEvent(null, OrderChangedEvent.Type.ORDERED));
+        }
+    }
+
+    // 주문(OrderService.itemLockMode)과 같은 기준 : 예약 엔진이면 Item 재고를 안 건드리므로 락 없이
+    private LockModeType itemLockMode(boolean reserve) {
+        return !reserve && stockProperties.getConcurrency().getMode() == StockConcurrencyMode.PESSIMISTIC
+                ? LockModeType.PESSIMISTIC_WRITE
+                : LockModeType.NONE;
+    }
+
+    private static String validate(Member member, SortedMap<Long, Integer> countByItem, Map<Long, Item> items, boolean reserved) {
+        if (member == null) {
+            return "존재하지 않는 회원 입니다.";
+        }
+        for (Map.Entry<Long, Integer> line : countByItem.entrySet()) {
+            Item item = items.get(line.getKey());
+            if (item == null) {
+                return "존재하지 않는 상품 입니다. itemId=" + line.getKey();
+            }
+            // 엔진을 안쓰면 chunk 안에서 앞 주문들이 차감한 재고 기준으로 검사
+            if (!reserved && item.getStockQuantity() < line.getValue()) {
+                return "need more stock";
+            }
+        }
+        return null;
+    }
+
+    private void reserveAll(SortedMap<Long, Integer> countByItem) {
+        Map<Long, Integer> done = new LinkedHashMap<>();
+        try {
+            countByItem.forEach((itemId, count) -> {
+                stockReservationEngine.reserve(itemId, count);
+                done.put(itemId, count);
+            });
+        } catch (RuntimeException e) {
+            done.forEach(stockReservationEngine::release); // 앞에서 예약한 상품은 되돌림
+            throw e;
+        }
+    }
+
+    private void releaseAll(SortedMap<Long, Integer> countByItem) {
+        countByItem.forEach(stockReservationEngine::release);
+    }
+
+    // chunk 트랜잭션 안에서의 결과, 커밋된 뒤에만 전체 결과에 반영
+    private static class ChunkOutcome {
+        private final Map<Integer, String> rejected = new LinkedHashMap<>();
+        private final List<Integer> accepted = new ArrayList<>();
+        private final Set<Integer> released = new HashSet<>();
+
+        /**
+         * 롤백된 시도의 결과는 버리고 다시 적재할 준비
+         * 예약을 이미 되돌리고 거절한 주문(released)은 메모리에서 일어난 일이라 롤백되지 않음
+         * => 거절 그대로 두고 다음 시도에서 빼서 두번 되돌리지 않도록
+         */
+        void rollback(Map<Integer, SortedMap<Long, Integer>> valid) {
+            accepted.clear();
+            rejected.keySet().retainAll(released);
+            released.forEach(valid::remove);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * 장바구니 주문 한 줄 (상품, 수량)
+ */
+@Getter
+@AllArgsConstructor
+public class OrderLine {
+    private Long itemId;
+    private int count;
+
+    /**
+     * 같은 상품이 여러 줄이면 합치고 상품 id 순으로 정렬
+     */
+    public static SortedMap<Long, Integer> countByItem(List<OrderLine> lines) {
+        SortedMap<Long, Integer> countByItem = new TreeMap<>();
+        for (OrderLine line : lines) {
+            countByItem.merge(line.getItemId(), line.getCount(), Integer::sum);
+        }
+        return countByItem;
+    }
+}
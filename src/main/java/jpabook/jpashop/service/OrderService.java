@@ -1,19 +1,36 @@
 package jpabook.jpashop.service;
 
+import jakarta.persistence.LockModeType;
+import jpabook.jpashop.config.StockProperties;
 import jpabook.jpashop.domain.Delivery;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderFetchPlan;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.simpleQuery.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /*
  # 도메인 모델 패턴(JPA, ORM 사용 시 좋음)
@@ -35,21 +52,31 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final StockReservationEngine stockReservationEngine;
+    private final StockProperties stockProperties;
+    private final ApplicationEventPublisher eventPublisher;
     /**
      * 주문
+     * 낙관적 락 충돌 재시도가 필요하면 OrderFacade를 통해 호출
      */
     @Transactional // 데이터를 변경하는 거니깐
     public Long order(Long memberId, Long itemId, int count) {
+        // 재고 선차감 (예약 엔진 / 원자적 update) => 품절이면 엔티티 조회 없이 바로 예외
+        boolean decreased = decreaseStockAhead(new TreeMap<>(Map.of(itemId, count)));
+
         // 엔티티 조회
         Member member = memberRepository.findById(memberId).get();
-        Item item = itemRepository.findOne(itemId);
+        Item item = itemRepository.findOne(itemId, itemLockMode());
 
         // 배송정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
         // 주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = decreased
+                ? OrderItem.createReservedOrderItem(item, item.getPrice(), count)
+                : OrderItem.createOrderItem(item, item.getPrice(), count);
 
         // 주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
@@ -60,6 +87,57 @@ public class OrderService {
         // cascade 사용 권장 범위 : 프라이빗 오너일경우만 ! 다른 것이 참조할수없는 !
         // (OrderItem과 delivery를 참조하는 주인은 Order 뿐, 라이프 사이클이 동일하게 관리되는 애들끼리만 사용 권장)
         orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.of(order)); // 목록 조회용 요약도 같은 트랜잭션으로
+        eventPublisher.publishEvent(new OrderChangedEvent(order.getId(), OrderChangedEvent.Type.ORDERED)); // 커밋되면 조회 캐시 무효화
+        return order.getId();
+    }
+
+    /**
+     * 장바구니 주문 (여러 상품을 한 주문으로)
+     *  - 상품은 in 쿼리 한번으로 조회
+     *  - 재고 차감은 항상 상품 id 순서로 => 여러 주문이 같은 상품들을 동시에 차감해도 row lock을 같은 순서로 잡아서 데드락이 안남
+     *    (hibernate.order_updates 로 flush 때 update 순서도 id 순으로 맞춰짐)
+     *  - 주문/배송/주문상품 insert는 커밋 시점에 한번에 flush (hibernate.jdbc.batch_size 로 JDBC batch)
+     */
+    @Transactional
+    public Long order(Long memberId, List<OrderLine> lines) {
+        SortedMap<Long, Integer> countByItem = OrderLine.countByItem(lines);
+        return createOrder(memberId, countByItem, decreaseStockAhead(countByItem));
+    }
+
+    /**
+     * OrderFacade가 트랜잭션을 열기 전에 예약 엔진으로 재고를 잡아둔 주문
+     * 커밋되면 예약 확정, 롤백되면 OrderFacade가 (재시도를 다 한 뒤) 되돌림
+     */
+    @Transactional
+    public Long order(Long memberId, StockReservation reservation) {
+        reservation.confirmOnCommit();
+        return createOrder(memberId, reservation.getCountByItem(), true);
+    }
+
+    private Long createOrder(Long memberId, SortedMap<Long, Integer> countByItem, boolean decreased) {
+        Member member = memberRepository.findById(memberId).get();
+        Map<Long, Item> items = itemRepository.findAllByIds(countByItem.keySet(), itemLockMode()).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        if (items.size() != countByItem.size()) {
+            throw new IllegalArgumentException("존재하지 않는 상품이 있습니다.");
+        }
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        countByItem.forEach((itemId, count) -> {
+            Item item = items.get(itemId);
+            orderItems.add(decreased
+                    ? OrderItem.createReservedOrderItem(item, item.getPrice(), count)
+                    : OrderItem.createOrderItem(item, item.getPrice(), count));
+        });
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        Order order = Order.createOrder(member, delivery, orderItems.toArray(new OrderItem[0]));
+        orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.of(order));
+        eventPublisher.publishEvent(new OrderChangedEvent(order.getId(), OrderChangedEvent.Type.ORDERED));
         return order.getId();
     }
 
@@ -70,13 +148,93 @@ public class OrderService {
     public void cancelOrder(Long orderId) {
         // 주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
+        eventPublisher.publishEvent(new OrderChangedEvent(orderId, OrderChangedEvent.Type.CANCELED));
+        OrderSummary summary = orderSummaryRepository.findOne(orderId);
+        if (summary != null) { // 재생성 전 주문이면 요약이 없을 수 있음
+            summary.cancel();
+        }
         // 주  문 취소
-        order.cancel();
+        if (stockReservationEngine.isEnabled()) {
+            order.cancelReserved();
+            for (OrderItem orderItem : order.getOrderItem()) {
+                stockReservationEngine.releaseAfterCommit(orderItem.getItem().getId(), orderItem.getCount());
+            }
+            return;
+        }
+        switch (concurrencyMode()) {
+            case ATOMIC_UPDATE -> {
+                order.cancelReserved();
+                for (OrderItem orderItem : order.getOrderItem()) {
+                    itemRepository.increaseStock(orderItem.getItem().getId(), orderItem.getCount());
+                }
+            }
+            case PESSIMISTIC -> {
+                // 재고를 되돌리기 전에 상품 row lock (id 순)
+                order.getOrderItem().stream()
+                        .map(orderItem -> orderItem.getItem().getId())
+                        .sorted()
+                        .forEach(itemId -> itemRepository.findOne(itemId, LockModeType.PESSIMISTIC_WRITE));
+                order.cancel();
+            }
+            default -> order.cancel();
+        }
     }
 
     public List<Order> findOrders(OrderSearch orderSearch) {
-        return orderRepository.findAllByString(orderSearch);
+        return orderRepository.findAll2(orderSearch);
         // 단순 조회, 위임서비스라면, 컨트롤러에서 리포지토리를 호출해도 괜찮다고 봄
     }
 
+    /**
+     * 주문 검색 페이징
+     *  - NONE : 한건 더 읽어서 다음 페이지 유무만 (count 쿼리 없음)
+     *  - 첫 페이지가 페이지 크기보다 적게 나오거나 마지막 페이지면 건수를 바로 계산하므로 count 쿼리 생략
+     *  - 조건이 없는 APPROXIMATE는 테이블 통계의 추정 건수
+     * 회원/배송은 SUMMARY plan으로 같이, 주문상품은 @BatchSize => 페이지당 쿼리 수 고정
+     */
+    public Slice<Order> searchOrders(OrderSearch orderSearch, Pageable pageable) {
+        if (orderSearch.getCountMode() == OrderSearch.CountMode.NONE) {
+            List<Order> orders = orderRepository.findAll2Page(orderSearch, pageable.getOffset(), pageable.getPageSize() + 1, OrderFetchPlan.SUMMARY);
+            boolean hasNext = orders.size() > pageable.getPageSize();
+            return new SliceImpl<>(hasNext ? orders.subList(0, pageable.getPageSize()) : orders, pageable, hasNext);
+        }
+        List<Order> orders = orderRepository.findAll2Page(orderSearch, pageable.getOffset(), pageable.getPageSize(), OrderFetchPlan.SUMMARY);
+        return PageableExecutionUtils.getPage(orders, pageable, () -> orderSearch.countsByEstimate()
+                ? orderRepository.estimateCount()
+                : orderRepository.countAll2(orderSearch));
+    }
+
+    /**
+     * 엔티티를 거치지 않고 재고를 먼저 차감 (상품 id 순)
+     *  - 예약 엔진 : 메모리에서 차감, 롤백되면 엔진이 예약을 되돌림
+     *    (OrderFacade를 거치면 트랜잭션 전에 예약하므로 여기까지 오지 않음 => 서비스를 직접 호출한 경우만)
+     *  - ATOMIC_UPDATE : 조건부 update 한 문장, 롤백되면 DB가 같이 되돌림
+     * @return 이미 차감했으면 true (=> 주문상품 생성 시 Item 엔티티 재고는 건드리지 않음)
+     */
+    private boolean decreaseStockAhead(SortedMap<Long, Integer> countByItem) {
+        if (stockReservationEngine.isEnabled()) {
+            countByItem.forEach(stockReservationEngine::reserve);
+            return true;
+        }
+        if (concurrencyMode() == StockConcurrencyMode.ATOMIC_UPDATE) {
+            countByItem.forEach((itemId, count) -> {
+                if (!itemRepository.decreaseStock(itemId, count)) {
+                    throw new NotEnoughStockException("need more stock");
+                }
+            });
+            return true;
+        }
+        return false;
+    }
+
+    private LockModeType itemLockMode() {
+        return !stockReservationEngine.isEnabled() && concurrencyMode() == StockConcurrencyMode.PESSIMISTIC
+                ? LockModeType.PESSIMISTIC_WRITE
+                : LockModeType.NONE;
+    }
+
+    private StockConcurrencyMode concurrencyMode() {
+        return stockProperties.getConcurrency().getMode();
+    }
+
 }
@@ -0,0 +1,87 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.order.simpleQuery.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * order_summary 재생성
+ *  - 최초 도입 시 기존 주문 채우기 / 주문 테이블을 직접 고친 경우 다시 맞추기
+ *  - 주문 id 순 키셋으로 chunk 단위 트랜잭션 (테이블 전체를 한 트랜잭션으로 잡지 않음)
+ *  - chunk의 주문은 select ... for update 로 읽음
+ *    => 재생성 중에 들어온 주문 취소가 요약 row를 예전 상태로 덮어쓰지 않도록, chunk 동안은 취소가 기다림
+ *
+ * 주기 실행 : jpashop.order-summary.rebuild-cron (기본은 꺼짐)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderSummaryRebuildService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final EntityManager em;
+    private final OrderRepository orderRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * @return 다시 만든 요약 row 수
+     */
+    @Scheduled(cron = "${jpashop.order-summary.rebuild-cron:-}")
+    public long rebuild() {
+        long start = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        long total = 0;
+        Long lastId = 0L;
+        while (true) {
+            Long from = lastId;
+            List<Long> rebuilt = tx.execute(status -> rebuildChunk(from));
+            if (rebuilt.isEmpty()) {
+                break;
+            }
+            total += rebuilt.size();
+            lastId = rebuilt.get(rebuilt.size() - 1);
+        }
+        Integer deleted = tx.execute(status -> orderSummaryRepository.deleteOrphans());
+
+        log.info("order_summary 재생성 완료 : {}건 갱신, {}건 삭제, {}ms", total, deleted, System.currentTimeMillis() - start);
+        return total;
+    }
+
+    private List<Long> rebuildChunk(Long lastId) {
+        List<Order> orders = orderRepository.findChunkForUpdate(lastId, CHUNK_SIZE);
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        Map<Long, OrderSummary> summaries = orderSummaryRepository.findAllByOrderIds(orderIds).stream()
+                .collect(Collectors.toMap(OrderSummary::getOrderId, Function.identity()));
+
+        for (Order order : orders) {
+            OrderSummary summary = summaries.get(order.getId());
+            if (summary == null) {
+                orderSummaryRepository.save(OrderSummary.of(order));
+            } else {
+                summary.refresh(order);
+            }
+        }
+        em.flush();
+        em.clear();
+        return orderIds;
+    }
+}
@@ -0,0 +1,191 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.config.WarmupProperties;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.simpleQuery.OrderSimpleQueryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 기동 warm-up
+ *
+ * 배포 직후 첫 요청은 JPQL 파싱, Querydsl 직렬화, 하이버네이트 쿼리 계획 캐시 채우기, JIT 컴파일 비용을 다 떠안음
+ * => InitDb(@PostConstruct) 이후, 트래픽을 받기 전에 조회 경로를 미리 실행
+ *  1. 경로마다 첫 호출 시간 (cold)
+ *  2. 검색조건 조합마다 한번씩 => 조건에 따라 JPQL 문자열이 달라지므로(findAllByString, findAll2) 조합별로 계획 캐시에 올림
+ *  3. 경로마다 iterations 만큼 반복 (JIT)
+ *  4. 다시 경로마다 한번 (warm) => cold/warm 각각 경로들 중 p99를 로그 + 메트릭(jpashop.warmup.first_call.p99)
+ *
+ * ApplicationRunner가 끝나야 readiness가 ACCEPTING_TRAFFIC이 됨 (그 전 요청은 WarmupGateFilter가 503)
+ * 조회 결과 캐시(@Cacheable)가 있는 경로는 첫 호출에 캐시가 채워짐 => 첫 요청도 캐시 hit
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "jpashop.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryWarmupRunner implements ApplicationRunner {
+
+    private static final int SEARCH_FILTERS = 7;
+    private static final int PAGE_SIZE = 20;
+    private static final int INDEXED_FILTERS = 1 | 1 << 2 | 1 << 3; // 회원이름, 주문일시 from, to
+    private static final String NO_MATCH_NAME = "#warm-up#";
+
+    private final OrderRepository orderRepository;
+    private final OrderQueryRepository orderQueryRepository;
+    private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final WarmupProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong coldP99Micros = new AtomicLong();
+    private final AtomicLong warmP99Micros = new AtomicLong();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        Map<String, Runnable> paths = paths();
+
+        Map<String, Long> cold = new LinkedHashMap<>();
+        paths.forEach((name, path) -> cold.put(name, timed(tx, name, path)));
+
+        int plans = compileSearchPlans(tx);
+
+        for (int i = 0; i < properties.getIterations(); i++) {
+            paths.forEach((name, path) -> timed(tx, name, path));
+        }
+
+        Map<String, Long> warm = new LinkedHashMap<>();
+        paths.forEach((name, path) -> warm.put(name, timed(tx, name, path)));
+
+        paths.keySet().forEach(name -> log.info("warm-up {} : 첫 호출 {}ms => {}ms",
+                name, cold.get(name) / 1_000_000.0, warm.get(name) / 1_000_000.0));
+        coldP99Micros.set(p99(cold.values()) / 1000);
+        warmP99Micros.set(p99(warm.values()) / 1000);
+        Gauge.builder("jpashop.warmup.first_call.p99", coldP99Micros, AtomicLong::get)
+                .tag("phase", "cold").baseUnit("microseconds").register(meterRegistry);
+        Gauge.builder("jpashop.warmup.first_call.p99", warmP99Micros, AtomicLong::get)
+                .tag("phase", "warm").baseUnit("microseconds").register(meterRegistry);
+
+        log.info("warm-up 완료 : 경로 {}개 x {}회, 검색조건 계획 {}개, {}ms / 첫 호출 p99 {}ms => {}ms",
+                paths.size(), properties.getIterations(), plans, System.currentTimeMillis() - start,
+                coldP99Micros.get() / 1000.0, warmP99Micros.get() / 1000.0);
+    }
+
+    /**
+     * api에서 쓰는 조회 경로 (엔티티 조회는 DTO 변환처럼 연관관계까지 초기화)
+     * 경로마다 iterations 번 넘게 실행되므로 전부 PAGE_SIZE 건으로 제한 (주문이 많아도 warm-up 시간이 늘지 않도록)
+     *  - 같은 JPQL에 limit만 다르게 => 계획 캐시는 api 호출과 같이 씀
+     *  - 페이징이 안되는 전체 조회(findAllWithItem : 컬렉션 fetch join, findOrderQueryDtos : 주문마다 N+1)는 제외
+     *  - 결과 캐시 경로(findAllByDto_optimiztion, findOrderDto(search))는 전체 조회를 캐시에 올리므로 제외
+     *    => 같은 루트/컬렉션 쿼리는 findPageByDto_flat, findOrderDto(search, limit)(캐시 없음)으로 warm-up
+     */
+    private Map<String, Runnable> paths() {
+        Map<String, Runnable> paths = new LinkedHashMap<>();
+        paths.put("OrderRepository.findAllByString", () -> touch(orderRepository.findAllByString(new OrderSearch(), PAGE_SIZE)));
+        paths.put("OrderRepository.findAllWithMemberDelivery", () -> touch(orderRepository.findAllWithMemberDelivery(0, PAGE_SIZE)));
+        paths.put("OrderRepository.findAllWithMemberDelivery(cursor)", () -> touch(orderRepository.findAllWithMemberDelivery(null, PAGE_SIZE)));
+        paths.put("OrderRepository.findAll2Page", () -> touch(orderRepository.findAll2Page(new OrderSearch(), 0, PAGE_SIZE)));
+        paths.put("OrderQueryRepository.findAllByDto_flat", () -> orderQueryRepository.findAllByDto_flat(PAGE_SIZE));
+        paths.put("OrderQueryRepository.findPageByDto_flat", () -> orderQueryRepository.findPageByDto_flat(null, PAGE_SIZE));
+        paths.put("OrderSimpleQueryRepository.findOrderDto", () -> orderSimpleQueryRepository.findOrderDto(new OrderSearch(), PAGE_SIZE));
+        return paths;
+    }
+
+    /**
+     * 검색조건 조합마다 한번씩 실행해서 계획 캐시에 올림
+     * 계획만 필요하므로 아무 row도 안나오는 값으로 검색 (search 참고)
+     *  - 회원이름(gram 인덱스), 주문일시 from/to(order_date 인덱스) 중 하나라도 있는 조합만
+     *    => 인덱스에서 바로 0건이 되므로 TOTAL_PRICE 정렬(주문마다 합계)이나 countAll2도 주문 테이블을 안 읽음
+     *  - 주문상태/상품이름/금액만 있는 조합은 0건이라도 주문을 다 훑어야 하므로 제외 (첫 요청이 JPQL 컴파일 비용을 냄)
+     * @return 실행한 조합 수 (정렬 포함)
+     */
+    private int compileSearchPlans(TransactionTemplate tx) {
+        int plans = 0;
+        for (int mask = 0; mask < (1 << SEARCH_FILTERS); mask++) {
+            if ((mask & INDEXED_FILTERS) == 0) {
+                continue;
+            }
+            List<OrderSearch> searches = new ArrayList<>();
+            for (OrderSearch.Sort sort : OrderSearch.Sort.values()) {
+                searches.add(search(mask, sort));
+            }
+            boolean nameAndStatusOnly = mask < (1 << 2); // 회원이름/주문상태만 쓰는 문자열 JPQL 경로 (조건 없음은 paths()에서)
+            timed(tx, "검색조건 " + mask, () -> {
+                searches.forEach(search -> orderRepository.findAll2Page(search, 0, 1));
+                orderRepository.countAll2(searches.get(0)); // 건수는 정렬과 무관
+                if (nameAndStatusOnly) {
+                    orderRepository.findAllByString(searches.get(0), 1);
+                    orderSimpleQueryRepository.findOrderDto(searches.get(0), 1);
+                }
+            });
+            plans += searches.size();
+        }
+        return plans;
+    }
+
+    // 검색조건 순서 : 회원이름, 주문상태, 주문일시 from, to, 상품이름, 최소금액, 최대금액
+    // 값은 전부 아무것도 안걸리게 (JPQL은 값과 무관하게 조건 유무로만 달라짐)
+    private static OrderSearch search(int mask, OrderSearch.Sort sort) {
+        OrderSearch search = new OrderSearch();
+        if ((mask & 1) != 0) search.setMemberName(NO_MATCH_NAME);
+        if ((mask & 1 << 1) != 0) search.setOrderStatus(OrderStatus.ORDER);
+        if ((mask & 1 << 2) != 0) search.setOrderDateFrom(LocalDateTime.of(9999, 1, 1, 0, 0));
+        if ((mask & 1 << 3) != 0) search.setOrderDateTo(LocalDateTime.of(1970, 1, 1, 0, 0));
+        if ((mask & 1 << 4) != 0) search.setItemName(NO_MATCH_NAME);
+        if ((mask & 1 << 5) != 0) search.setMinTotalPrice(Integer.MAX_VALUE);
+        if ((mask & 1 << 6) != 0) search.setMaxTotalPrice(-1);
+        search.setSort(sort);
+        return search;
+    }
+
+    /**
+     * @return 걸린 시간(ns), 실패하면 로그만 남기고 계속 (warm-up 실패로 기동이 막히지 않도록)
+     */
+    private static long timed(TransactionTemplate tx, String name, Runnable path) {
+        long start = System.nanoTime();
+        try {
+            tx.executeWithoutResult(s -> path.run());
+        } catch (RuntimeException e) {
+            log.warn("warm-up 실패 : {}", name, e);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void touch(List<Order> orders) {
+        for (Order order : orders) {
+            order.getMember().getName();
+            order.getDelivery().getAddress();
+            for (OrderItem orderItem : order.getOrderItem()) {
+                orderItem.getItem().getName();
+            }
+        }
+    }
+
+    private static long p99(Collection<Long> nanos) {
+        List<Long> sorted = nanos.stream().sorted().toList();
+        return sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+    }
+}
@@ -0,0 +1,22 @@
+package jpabook.jpashop.service;
+
+/**
+ * 재고 차감 동시성 제어 방식 (jpashop.stock.concurrency.mode)
+ */
+public enum StockConcurrencyMode {
+    /**
+     * Item @Version 으로 충돌 감지, 충돌하면 OrderFacade가 주문 트랜잭션을 재시도
+     * 충돌이 드문 경우(상품이 많고 주문이 흩어진 경우)에 유리
+     */
+    OPTIMISTIC,
+    /**
+     * 상품 조회 시 select ... for update 로 row lock
+     * 충돌은 없지만 같은 상품 주문은 커밋될 때까지 줄을 섬
+     */
+    PESSIMISTIC,
+    /**
+     * update item set stock_quantity = stock_quantity - n where stock_quantity >= n
+     * 조회-수정-저장 없이 DB가 원자적으로 차감, row lock 보유 시간이 가장 짧음
+     */
+    ATOMIC_UPDATE
+}
@@ -0,0 +1,50 @@
+package jpabook.jpashop.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 주문 트랜잭션 밖(OrderFacade)에서 미리 잡아둔 재고 예약 (StockReservationEngine.reserveAll)
+ *
+ * 주문 트랜잭션이 커밋되면 확정(confirmOnCommit), 끝내 실패하면 호출한 쪽이 releaseUnlessCommitted로 되돌림
+ * 낙관적 락 재시도 중 롤백은 되돌리지 않음 => 다음 시도가 같은 예약을 그대로 씀
+ */
+public class StockReservation {
+
+    private final StockReservationEngine engine;
+    private final SortedMap<Long, Integer> countByItem;
+    private final AtomicBoolean settled = new AtomicBoolean();
+
+    StockReservation(StockReservationEngine engine, SortedMap<Long, Integer> countByItem) {
+        this.engine = engine;
+        this.countByItem = countByItem;
+    }
+
+    public SortedMap<Long, Integer> getCountByItem() {
+        return countByItem;
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋되면 예약 확정 (주문 트랜잭션 안에서 호출)
+     */
+    public void confirmOnCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                settled.set(true);
+            }
+        });
+    }
+
+    /**
+     * 확정되지 않았으면 예약한 재고를 돌려줌 (여러번 불려도 한번만)
+     */
+    public void releaseUnlessCommitted() {
+        if (settled.compareAndSet(false, true)) {
+            countByItem.forEach(engine::release);
+        }
+    }
+}
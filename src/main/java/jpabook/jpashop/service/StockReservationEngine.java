@@ -0,0 +1,340 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * 메모리 재고 예약 엔진
+ *
+ * 기존 방식은 주문 트랜잭션 안에서 Item 엔티티의 재고를 read-modify-write 하기 때문에,
+ * 한 상품에 주문이 몰리면 모든 주문이 item row 하나에 줄을 서게 됨
+ * => 상품별 재고 카운터를 메모리에 두고 CAS로 차감, DB에는 차감분을 모아서 주기적으로 반영(write-back)
+ * => 품절 상품은 DB를 전혀 건드리지 않고 NotEnoughStockException
+ *
+ * 상품별 상태
+ *  - available : 지금 주문 가능한 수량
+ *  - pending   : 차감됐지만 아직 DB에 반영되지 않은 수량 (음수면 복구분)
+ *  - inFlight  : flush가 가져가서 write-back 중인(아직 커밋 안된) 수량
+ *  => 항상 DB 재고 = available + pending + inFlight
+ *
+ * 예약/복구/조정/flush의 차감분 가져가기는 스트라이프 read lock(공유), 슬롯 제거(evict)는 write lock
+ * => 서로 다른 상품끼리는 경쟁하지 않고, 같은 상품도 CAS로만 경쟁함
+ * evict는 inFlight가 0이 될때까지(= write-back이 커밋될때까지) 기다렸다가 제거
+ * => 다음 예약이 DB에서 다시 읽어올때 반영 전 재고로 슬롯을 만들지 않음 (초과판매 방지)
+ *
+ * 주의 : 엔진을 켜면 재고 변경은 반드시 엔진을 통해야 함 (엔티티 변경감지로 재고를 덮어쓰면 차감분이 사라짐)
+ *        상품 수정도 절대값이 아니라 adjust(차이만큼)로
+ * 한계 : 카운터는 JVM 하나의 메모리에만 있음
+ *        - 서버가 죽으면 아직 write-back 안된 차감분(pending)은 사라짐 => DB 재고가 실제보다 많게 남음 (최대 flush 주기만큼의 주문)
+ *        - 서버 여러대가 같은 상품을 각자 예약하면 서로의 차감을 모름 => 인스턴스 하나에서만 켜거나 상품별로 라우팅
+ */
+@Slf4j
+public class StockReservationEngine {
+
+    private final boolean enabled;
+    private final LongFunction<Integer> stockLoader;
+    private final Consumer<Map<Long, Integer>> writeBack;
+    private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final ReadWriteLock[] stripes;
+
+    /**
+     * @param stockLoader 캐시에 없는 상품의 현재 DB 재고 (상품이 없으면 null)
+     * @param writeBack   상품id -> 차감할 수량 을 DB에 한번에 반영
+     */
+    public StockReservationEngine(boolean enabled, int stripeCount,
+                                  LongFunction<Integer> stockLoader, Consumer<Map<Long, Integer>> writeBack) {
+        this.enabled = enabled;
+        this.stockLoader = stockLoader;
+        this.writeBack = writeBack;
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1); // 2의 제곱수로 올림
+        this.stripes = new ReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 재고 예약 (차감)
+     * 트랜잭션 안에서 호출하면, 롤백될 때 자동으로 예약을 되돌림
+     */
+    public void reserve(Long itemId, int count) {
+        reserveNow(itemId, count);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(itemId, count);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 주문 트랜잭션을 열기 전에 여러 상품을 한번에 예약 (상품 id 순)
+     * 하나라도 부족하면 앞에서 잡은 것까지 되돌리고 NotEnoughStockException => 품절이면 트랜잭션/커넥션 없이 거절
+     * 롤백 시 자동 복구는 하지 않음 (재시도하면 같은 예약을 다시 씀) => 호출한 쪽이 StockReservation으로 정리
+     */
+    public StockReservation reserveAll(SortedMap<Long, Integer> countByItem) {
+        Map<Long, Integer> reserved = new LinkedHashMap<>();
+        try {
+            countByItem.forEach((itemId, count) -> {
+                reserveNow(itemId, count);
+                reserved.put(itemId, count);
+            });
+        } catch (RuntimeException e) {
+            reserved.forEach(this::release);
+            throw e;
+        }
+        return new StockReservation(this, countByItem);
+    }
+
+    private void reserveNow(Long itemId, int count) {
+        Lock lock = stripe(itemId).readLock();
+        lock.lock();
+        try {
+            Slot slot = slot(itemId);
+            int current;
+            do {
+                current = slot.available.get();
+                if (current < count) {
+                    throw new NotEnoughStockException("need more stock");
+                }
+            } while (!slot.available.compareAndSet(current, current - count));
+            slot.pending.addAndGet(count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 예약 취소 (재고 복구)
+     * 캐시에 없으면 다시 로딩해서 복구분도 다른 차감분과 같이 write-back
+     * (DB에 바로 쓰면, 그 사이 다른 스레드가 복구 전 재고로 슬롯을 만들 수 있음)
+     */
+    public void release(Long itemId, int count) {
+        Lock lock = stripe(itemId).readLock();
+        lock.lock();
+        try {
+            Slot slot = slot(itemId);
+            slot.available.addAndGet(count);
+            slot.pending.addAndGet(-count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 주문 취소처럼 커밋된 뒤에 재고를 돌려줘야 하는 경우
+     */
+    public void releaseAfterCommit(Long itemId, int count) {
+        afterCommit(() -> release(itemId, count));
+    }
+
+    /**
+     * 재고를 delta 만큼 조정 (상품 수정 : 입력한 재고 - 지금 주문 가능 수량)
+     * 수정 트랜잭션 중에도 예약은 계속 들어오므로, 절대값으로 덮어쓰고 evict 하면 그 사이 차감분이 write-back 때 한번 더 빠짐
+     * => 차이만 엔진에 반영하고 DB에는 다른 차감분과 같이 write-back
+     * 줄이는 경우 이미 예약된 만큼은 되돌릴 수 없으므로 주문 가능 수량은 0에서 멈춤
+     */
+    public void adjust(Long itemId, int delta) {
+        Lock lock = stripe(itemId).readLock();
+        lock.lock();
+        try {
+            Slot slot = slot(itemId);
+            int current;
+            int next;
+            do {
+                current = slot.available.get();
+                next = Math.max(0, current + delta);
+            } while (!slot.available.compareAndSet(current, next));
+            slot.pending.addAndGet(current - next);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void adjustAfterCommit(Long itemId, int delta) {
+        afterCommit(() -> adjust(itemId, delta));
+    }
+
+    /**
+     * 상품 재고를 엔진 밖에서 직접 바꾼 경우 캐시를 버림
+     * write-back 중인 차감분이 커밋될때까지 기다리고, 남아있던 차감분은 먼저 DB에 반영한 뒤 제거
+     * => 다음 예약때 DB에서 다시 읽어옴 (반영이 실패하면 슬롯을 그대로 두고 예외)
+     */
+    public void evict(Long itemId) {
+        Lock lock = stripe(itemId).writeLock();
+        lock.lock();
+        try {
+            Slot slot = slots.get(itemId);
+            if (slot == null) {
+                return;
+            }
+            slot.awaitWriteBack();
+            int delta = slot.pending.get(); // write lock 안이라 예약/복구가 끼어들지 않음
+            if (delta != 0) {
+                writeBack.accept(Map.of(itemId, delta));
+                slot.pending.addAndGet(-delta);
+            }
+            slots.remove(itemId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evictAfterCommit(Long itemId) {
+        afterCommit(() -> evict(itemId));
+    }
+
+    /**
+     * 쌓인 차감분을 DB에 한번에 반영 (주기적으로 + 종료 시)
+     * 차감분은 스트라이프 read lock 안에서 pending -> inFlight 로 옮기고, write-back이 끝나면(커밋 or 실패) inFlight에서 뺌
+     * 실패하면 pending으로 되돌려서 다음 주기에 재시도 (inFlight 인 동안은 evict되지 않으므로 슬롯은 그대로 있음)
+     */
+    @Scheduled(fixedDelayString = "${jpashop.stock.reservation.flush-interval-ms:200}")
+    public void flush() {
+        Map<Long, Integer> deltas = new HashMap<>();
+        Map<Long, Slot> flushing = new HashMap<>();
+        for (Long itemId : slots.keySet()) {
+            Lock lock = stripe(itemId).readLock();
+            lock.lock();
+            try {
+                Slot slot = slots.get(itemId);
+                if (slot == null) {
+                    continue;
+                }
+                int delta = slot.pending.getAndSet(0);
+                if (delta != 0) {
+                    slot.inFlight.addAndGet(delta);
+                    deltas.put(itemId, delta);
+                    flushing.put(itemId, slot);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        boolean committed = false;
+        try {
+            writeBack.accept(deltas);
+            committed = true;
+        } catch (RuntimeException e) {
+            // 반영 실패분은 다음 주기에 다시 시도
+            log.error("재고 write-back 실패, 다음 주기에 재시도 : {}", deltas, e);
+        } finally {
+            for (Map.Entry<Long, Slot> entry : flushing.entrySet()) {
+                entry.getValue().completeWriteBack(deltas.get(entry.getKey()), committed);
+            }
+        }
+    }
+
+    /**
+     * 현재 주문 가능 수량 (캐시에 없으면 DB에서 로딩)
+     */
+    public int available(Long itemId) {
+        Lock lock = stripe(itemId).readLock();
+        lock.lock();
+        try {
+            return slot(itemId).available.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 스트라이프 read lock을 잡고 호출 (로딩 중에 evict가 끼어들어 차감분 반영 전 재고로 슬롯을 만들지 않도록)
+     * 로딩(DB 트랜잭션)은 computeIfAbsent 밖에서 => ConcurrentHashMap bin 락을 잡은 채 DB를 타지 않음
+     * 같은 상품을 동시에 로딩하면 먼저 넣은 슬롯을 씀 (read lock 안이라 그 사이 재고는 바뀌지 않음)
+     */
+    private Slot slot(Long itemId) {
+        Slot slot = slots.get(itemId);
+        if (slot != null) {
+            return slot;
+        }
+        Integer stock = stockLoader.apply(itemId);
+        if (stock == null) {
+            throw new IllegalArgumentException("상품이 존재하지 않습니다. itemId=" + itemId);
+        }
+        Slot loaded = new Slot(stock);
+        Slot raced = slots.putIfAbsent(itemId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private ReadWriteLock stripe(Long itemId) {
+        int h = itemId.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Slot {
+        private final AtomicInteger available;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Slot(int available) {
+            this.available = new AtomicInteger(available);
+        }
+
+        // 실패분은 inFlight에서 빼기 전에 pending으로 먼저 되돌림 => 기다리던 evict가 깨어나면 pending에서 보게 됨
+        private void completeWriteBack(int delta, boolean committed) {
+            if (!committed) {
+                pending.addAndGet(delta);
+            }
+            inFlight.addAndGet(-delta);
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        private synchronized void awaitWriteBack() {
+            boolean interrupted = false;
+            while (inFlight.get() != 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true; // 기다리지 않고 제거하면 초과판매 => 끝까지 기다리고 인터럽트 상태만 복원
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package jpabook.jpashop;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 커밋까지 확인해야 해서 @Transactional(롤백)을 못쓰는 테스트의 뒷정리
+ * 스프링 컨텍스트(= 메모리 DB)는 테스트끼리 공유되므로 커밋한 데이터를 지워두지 않으면 다른 테스트에 섞임
+ *
+ * 테스트 시작 전에 snapshot()으로 이미 있던 id를 기억해두고, 끝나면 그 뒤에 생긴 row만 지움
+ * => InitDb가 넣은 데이터(다른 테스트가 기대하는 초기 데이터)는 남김
+ *    (id는 컨텍스트마다 시퀀스 블록을 따로 받아서 크기 순서가 보장되지 않으므로 max id가 아니라 id 집합으로 비교)
+ * JDBC로 지우므로 2차 캐시(쿼리 캐시 포함)도 같이 비움
+ */
+public final class CommittedData {
+
+    // id 컬럼이 있는 테이블 (연결 테이블은 이 id들로 지움)
+    private static final Map<String, String> ID_COLUMNS = Map.of(
+            "member", "member_id",
+            "item", "item_id",
+            "category", "category_id",
+            "orders", "order_id",
+            "delivery", "delivery_id",
+            "order_item", "order_item_id");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Map<String, Set<Long>> existing = new HashMap<>();
+
+    private CommittedData(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        ID_COLUMNS.forEach((table, column) -> existing.put(table, new HashSet<>(ids(table, column))));
+    }
+
+    public static CommittedData snapshot(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        return new CommittedData(jdbcTemplate, entityManagerFactory);
+    }
+
+    /**
+     * snapshot 이후에 생긴 row만 FK 방향 순서(자식 테이블부터)로 지움
+     */
+    public void deleteCreated() {
+        Map<String, List<Long>> created = new HashMap<>();
+        ID_COLUMNS.forEach((table, column) -> created.put(table, ids(table, column).stream()
+                .filter(id -> !existing.get(table).contains(id))
+                .toList()));
+
+        update("update category set parent_id = null where category_id in (:category)", created); // 자기참조 FK
+        update("delete from order_summary where order_id in (:orders)", created);
+        update("delete from order_item where order_item_id in (:order_item) or order_id in (:orders) or item_id in (:item)", created);
+        update("delete from orders where order_id in (:orders)", created);
+        update("delete from delivery where delivery_id in (:delivery)", created);
+        update("delete from category_item where category_id in (:category) or item_id in (:item)", created);
+        update("delete from category_closure where ancestor_id in (:category) or descendant_id in (:category)", created);
+        update("delete from category where category_id in (:category)", created);
+        update("delete from member_name_gram where member_id in (:member)", created);
+        update("delete from item where item_id in (:item)", created);
+        update("delete from member where member_id in (:member)", created);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    private List<Long> ids(String table, String column) {
+        return jdbcTemplate.queryForList("select " + column + " from " + table, Long.class);
+    }
+
+    // in () 는 SQL 문법 오류이므로 빈 목록은 존재하지 않는 id(-1)로
+    private void update(String sql, Map<String, List<Long>> created) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        created.forEach((table, ids) -> params.addValue(table, ids.isEmpty() ? List.of(-1L) : ids));
+        new NamedParameterJdbcTemplate(jdbcTemplate).update(sql, params);
+    }
+}
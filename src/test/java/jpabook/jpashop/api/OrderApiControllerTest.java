@@ -0,0 +1,133 @@
+package jpabook.jpashop.api;
+
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class OrderApiControllerTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 커서페이징_limit_범위() throws Exception{
+        for (String limit : new String[]{"0", "-1", "1001"}) {
+            mockMvc.perform(get("/api/v3.1/orders/cursor").param("limit", limit))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    public void 커서페이징_다음커서를_따라_마지막페이지까지() throws Exception{
+        //given : InitDb 주문 2건
+        MvcResult first = mockMvc.perform(get("/api/v3.1/orders/cursor").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn();
+
+        //when : nextCursor가 없어질 때까지
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+        int pages = 1;
+        MvcResult last = first;
+        while (cursor != null) {
+            assertTrue("커서가 끝나지 않는다.", pages <= 100);
+            last = mockMvc.perform(get("/api/v3.1/orders/cursor").param("limit", "1").param("after", cursor))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            cursor = JsonPath.read(last.getResponse().getContentAsString(), "$.nextCursor");
+            pages++;
+        }
+
+        //then : 가득 찬 페이지마다 커서가 나오고, 마지막(덜 찬) 페이지에서 없어짐
+        assertTrue(pages >= 3);
+        List<?> lastData = JsonPath.read(last.getResponse().getContentAsString(), "$.data");
+        assertTrue(lastData.isEmpty());
+    }
+
+    @Test
+    public void 잘못된_커서는_400() throws Exception{
+        mockMvc.perform(get("/api/v3.1/orders/cursor").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v6.1/orders").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 대량적재_중간에_잘못된_JSON이면_앞까지_적재한_결과와_400() throws Exception{
+        //given : 두번째 주문의 memberId가 숫자가 아님
+        Member member = new Member();
+        member.setName("적재회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        Book book = new Book();
+        book.setName("적재상품");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        String order = "{\"memberId\":" + member.getId() + ",\"lines\":[{\"itemId\":" + book.getId() + ",\"count\":1}]}";
+        String body = "[" + order + ",{\"memberId\":\"abc\"}," + order + "]";
+
+        //when, then : 세번째 주문은 읽지 않음
+        mockMvc.perform(post("/api/v1/orders/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejectedCount").value(0))
+                .andExpect(jsonPath("$.abortedAt").value(1))
+                .andExpect(jsonPath("$.abortReason").exists());
+    }
+
+    @Test
+    public void 주문_한건_조회() throws Exception{
+        //given
+        Member member = new Member();
+        member.setName("한건회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        Book book = new Book();
+        book.setName("한건상품");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 2));
+        em.persist(order);
+
+        //when, then
+        mockMvc.perform(get("/api/v1/orders/" + order.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("한건회원"))
+                .andExpect(jsonPath("$.orderItems.length()").value(1))
+                .andExpect(jsonPath("$.orderItems[0].itemName").value("한건상품"));
+        mockMvc.perform(get("/api/v1/orders/" + Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+}
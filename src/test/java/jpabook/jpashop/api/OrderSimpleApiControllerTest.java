@@ -0,0 +1,70 @@
+package jpabook.jpashop.api;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class OrderSimpleApiControllerTest {
+
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    public void 커서페이징_limit_범위() throws Exception{
+        for (String limit : new String[]{"0", "-1", "1001"}) {
+            mockMvc.perform(get("/api/v5/simple-orders").param("limit", limit))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    public void 커서페이징_다음커서를_따라_마지막페이지까지() throws Exception{
+        //given : InitDb 주문 2건
+        MvcResult first = mockMvc.perform(get("/api/v5/simple-orders").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn();
+
+        //when : nextCursor가 없어질 때까지
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+        int pages = 1;
+        MvcResult last = first;
+        while (cursor != null) {
+            assertTrue("커서가 끝나지 않는다.", pages <= 100);
+            last = mockMvc.perform(get("/api/v5/simple-orders").param("limit", "1").param("after", cursor))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            cursor = JsonPath.read(last.getResponse().getContentAsString(), "$.nextCursor");
+            pages++;
+        }
+
+        //then : 가득 찬 페이지마다 커서가 나오고, 마지막(덜 찬) 페이지에서 없어짐
+        assertTrue(pages >= 3);
+        List<?> lastData = JsonPath.read(last.getResponse().getContentAsString(), "$.data");
+        assertTrue(lastData.isEmpty());
+    }
+
+    @Test
+    public void 잘못된_커서는_400() throws Exception{
+        mockMvc.perform(get("/api/v5/simple-orders").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,104 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/*
+jpashop.batch-fetch.adaptive=true 로 주문 한 페이지를 읽고 주문상품/상품까지 지연로딩
+ - 결과 : 모든 주문의 주문상품/상품이 빠짐없이 올라와야 함
+ - 쿼리 수 : 주문 수만큼(N+1)이 아니라 batch 크기(16 => 32 => 64 ..)로 나눈 만큼만
+SQL 수는 하이버네이트 통계(generate_statistics)의 prepared statement 수로 셈
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.batch-fetch.adaptive=true")
+@Transactional
+public class AdaptiveBatchFetchTest {
+
+    private static final int ORDER_COUNT = 50;
+
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired OrderRepository orderRepository;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    public void 주문_페이지의_주문상품_상품을_batch로_지연로딩() throws Exception{
+        //given : 주문마다 상품 2개
+        Map<Long, String> itemNamesByOrder = new HashMap<>();
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = createOrder("회원" + i, "JPA" + i, "SPRING" + i);
+            itemNamesByOrder.put(order.getId(), "JPA" + i + "," + "SPRING" + i);
+        }
+        em.flush();
+        em.clear();
+        entityManagerFactory.getCache().evictAll(); // 상품이 2차 캐시에서 나오면 지연로딩 쿼리가 안나감
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(0, 1000);
+        Map<Long, String> loaded = new HashMap<>();
+        for (Order order : orders) {
+            List<String> names = order.getOrderItem().stream()
+                    .map(orderItem -> orderItem.getItem().getName())
+                    .sorted()
+                    .toList();
+            loaded.put(order.getId(), String.join(",", names));
+        }
+        long statements = statistics.getPrepareStatementCount();
+
+        //then
+        itemNamesByOrder.forEach((orderId, names) ->
+                assertEquals("주문상품/상품이 빠짐없이 올라와야 한다.", names, loaded.get(orderId)));
+        // 루트 1 + 주문상품 컬렉션 (32, 64 ..) + 상품 프록시 (32, 64, 128 ..) => N+1 이면 주문 수 x 2 이상
+        assertTrue("지연로딩이 batch로 묶여야 한다. statements=" + statements, statements <= 10);
+        assertNotNull("adaptive 리스너가 크기를 정했어야 한다.",
+                meterRegistry.find("jpashop.batch_fetch.size").tag("association", "Order.orderItem").gauge());
+        assertNotNull(meterRegistry.find("jpashop.batch_fetch.size").tag("association", "Item").gauge());
+    }
+
+    private Order createOrder(String memberName, String... itemNames) {
+        Member member = new Member();
+        member.setName(memberName);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        OrderItem[] orderItems = new OrderItem[itemNames.length];
+        for (int i = 0; i < itemNames.length; i++) {
+            Book book = new Book();
+            book.setName(itemNames[i]);
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            em.persist(book);
+            orderItems[i] = OrderItem.createOrderItem(book, 10000, 1);
+        }
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery, orderItems);
+        em.persist(order);
+        return order;
+    }
+}
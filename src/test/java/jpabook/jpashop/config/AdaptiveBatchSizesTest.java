@@ -0,0 +1,69 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/*
+스프링 없이 순수 단위테스트
+min 16, max 1024, decay 0.5
+ */
+public class AdaptiveBatchSizesTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveBatchSizes batchSizes = new AdaptiveBatchSizes(properties(), meterRegistry);
+
+    @Test
+    public void 큰_burst는_2배씩_늘어남() throws Exception{
+        //when, then
+        assertEquals(32, batchSizes.next("Order.orderItem", 1000));
+        assertEquals(64, batchSizes.next("Order.orderItem", 968));
+        assertEquals(128, batchSizes.next("Order.orderItem", 904));
+    }
+
+    @Test
+    public void 상한_하한() throws Exception{
+        //when
+        for (int i = 0; i < 20; i++) {
+            batchSizes.next("Item", 100_000);
+        }
+        batchSizes.next("Member", 1);
+
+        //then
+        assertEquals("상한을 넘지 않음", 1024, batchSizes.size("Item"));
+        assertEquals("하한보다 작아지지 않음", 16, batchSizes.size("Member"));
+        assertEquals("조회 전에는 하한", 16, batchSizes.size("Delivery"));
+    }
+
+    @Test
+    public void 대기_수가_줄면_천천히_줄어듦() throws Exception{
+        //given
+        for (int i = 0; i < 10; i++) {
+            batchSizes.next("Item", 1024);
+        }
+
+        //when, then
+        assertEquals(512, batchSizes.next("Item", 10));
+        assertEquals(256, batchSizes.next("Item", 10));
+        assertEquals("2의 제곱수로 올림", 256, batchSizes.next("Item", 200));
+    }
+
+    @Test
+    public void 메트릭() throws Exception{
+        //when
+        batchSizes.next("Order.orderItem", 40);
+
+        //then
+        assertEquals(32.0, meterRegistry.get("jpashop.batch_fetch.size").tag("association", "Order.orderItem").gauge().value(), 0);
+        assertEquals(1, meterRegistry.get("jpashop.batch_fetch.pending").tag("association", "Order.orderItem").summary().count());
+    }
+
+    private static BatchFetchProperties properties() {
+        BatchFetchProperties properties = new BatchFetchProperties();
+        properties.setMinSize(16);
+        properties.setMaxSize(1024);
+        properties.setDecay(0.5);
+        return properties;
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.jpashop.config;
+
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.simpleQuery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.OrderChangedEvent;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+
+/*
+무효화는 @TransactionalEventListener(커밋 후)이므로 테스트 트랜잭션(롤백)으로 감싸지 않음
+데이터는 만들지 않음 (빈 결과도 캐시됨)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderQueryCacheTest {
+
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired OrderSimpleQueryRepository orderSimpleQueryRepository;
+    @Autowired CacheManager cacheManager;
+    @Autowired ApplicationEventPublisher eventPublisher;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @After
+    public void tearDown() {
+        cache(OrderQueryCacheConfig.ORDER_QUERY_DTOS).invalidate();
+        cache(OrderQueryCacheConfig.ORDER_SIMPLE_DTOS).invalidate();
+    }
+
+    @Test
+    public void 주문변경이_커밋되면_두_캐시_모두_비움() throws Exception{
+        //given : 두 캐시를 채움
+        orderQueryRepository.findAllByDto_optimiztion();
+        orderSimpleQueryRepository.findOrderDto(new OrderSearch());
+        assertFilled();
+
+        //when : 롤백된 트랜잭션의 이벤트
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new OrderChangedEvent(1L, OrderChangedEvent.Type.ORDERED));
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertFilled();
+
+        //when : 커밋된 트랜잭션의 이벤트
+        transactionTemplate.executeWithoutResult(status ->
+                eventPublisher.publishEvent(new OrderChangedEvent(1L, OrderChangedEvent.Type.CANCELED)));
+
+        //then
+        assertNull(cache(OrderQueryCacheConfig.ORDER_QUERY_DTOS).get("findAllByDto_optimiztion"));
+        assertNull(cache(OrderQueryCacheConfig.ORDER_SIMPLE_DTOS).get("null:null"));
+    }
+
+    private void assertFilled() {
+        assertNotNull(cache(OrderQueryCacheConfig.ORDER_QUERY_DTOS).get("findAllByDto_optimiztion"));
+        assertNotNull("검색조건(회원이름:상태)이 키", cache(OrderQueryCacheConfig.ORDER_SIMPLE_DTOS).get("null:null"));
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.config;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/*
+스프링 없이 순수 단위테스트
+헤더를 붙이려고 응답을 버퍼링하더라도, 스트리밍 응답은 쓰는 즉시 원래 응답으로 나가야 함
+ */
+public class QueryCounterFilterTest {
+
+    @Test
+    public void 일반_응답은_버퍼링() throws Exception{
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        QueryCounterFilter.StreamingAwareResponseWrapper wrapper = new QueryCounterFilter.StreamingAwareResponseWrapper(response);
+
+        wrapper.setContentType("application/json");
+        wrapper.getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(wrapper.isStreaming());
+        assertEquals("", response.getContentAsString());
+        wrapper.copyBodyToResponse();
+        assertEquals("{}", response.getContentAsString());
+    }
+
+    @Test
+    public void 스트리밍_응답은_바로_내보냄() throws Exception{
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        QueryCounterFilter.StreamingAwareResponseWrapper wrapper = new QueryCounterFilter.StreamingAwareResponseWrapper(response);
+
+        wrapper.setContentType("application/x-ndjson");
+        wrapper.getOutputStream().write("{\"orderId\":1}\n".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(wrapper.isStreaming());
+        assertEquals("버퍼에 쌓지 않고 바로", "{\"orderId\":1}\n", response.getContentAsString());
+        assertEquals(0, wrapper.getContentSize());
+    }
+}
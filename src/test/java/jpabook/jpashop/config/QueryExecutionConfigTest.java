@@ -0,0 +1,26 @@
+package jpabook.jpashop.config;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class QueryExecutionConfigTest {
+
+    @Autowired ApplicationContext context;
+
+    @Test
+    public void 쿼리_executor가_applicationTaskExecutor를_밀어내지_않음() throws Exception{
+        assertTrue("MVC 비동기 / @Async 기본 executor", context.containsBean("applicationTaskExecutor"));
+        assertFalse("쿼리 executor는 Executor 타입 빈이 아님", context.getBeansOfType(Executor.class).containsKey("queryExecutor"));
+        assertNotNull(context.getBean(QueryExecutor.class).executor());
+    }
+}
@@ -0,0 +1,173 @@
+package jpabook.jpashop.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.CommittedData;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.service.CategoryService;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.StockReservationEngine;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+
+/*
+2차 캐시는 트랜잭션이 커밋돼야 채워지고/무효화되므로 테스트 트랜잭션(롤백)으로 감싸지 않음
+세션(EntityManager)을 새로 열어서 1차 캐시가 아닌 2차 캐시를 거치는지 확인
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class SecondLevelCacheTest {
+
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired ItemService itemService;
+    @Autowired CategoryService categoryService;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired ItemRepository itemRepository;
+    @Autowired StockReservationEngine stockReservationEngine;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private Long itemId;
+    private CommittedData committedData;
+
+    @Before
+    public void setUp() {
+        committedData = CommittedData.snapshot(jdbcTemplate, entityManagerFactory);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Book book = new Book();
+        book.setName("JPA 프로그래밍");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        itemId = book.getId();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @After
+    public void tearDown() {
+        committedData.deleteCreated();
+    }
+
+    @Test
+    public void 상품은_새_세션에서_2차캐시로_조회() throws Exception{
+        //given
+        findItemInNewSession();
+        assertTrue(entityManagerFactory.getCache().contains(Item.class, itemId));
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        //when
+        Item item = findItemInNewSession();
+
+        //then
+        assertEquals(10, item.getStockQuantity());
+        assertEquals("DB 대신 2차 캐시에서", hits + 1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void 재고_write_back이_새_세션에서_보임() throws Exception{
+        //given : 상품이 2차 캐시에 올라간 상태
+        findItemInNewSession();
+
+        //when : 예약 엔진 write-back (JDBC로 재고 +5, 하이버네이트는 모름)
+        stockReservationEngine.release(itemId, 5);
+
+        //then
+        assertFalse("커밋 후 캐시에서 빠져야 한다.", entityManagerFactory.getCache().contains(Item.class, itemId));
+        Item item = findItemInNewSession();
+        assertEquals(15, item.getStockQuantity());
+    }
+
+    @Test
+    public void 재고_원자적update는_그_상품만_캐시에서_비움() throws Exception{
+        //given : 두 상품이 2차 캐시에 올라간 상태
+        Book other = new Book();
+        other.setName("다른 상품");
+        other.setPrice(10000);
+        other.setStockQuantity(10);
+        itemService.saveItem(other);
+        findItemInNewSession();
+        transactionTemplate.execute(status -> itemRepository.findOne(other.getId()));
+        assertTrue(entityManagerFactory.getCache().contains(Item.class, other.getId()));
+
+        //when
+        boolean decreased = transactionTemplate.execute(status -> itemRepository.decreaseStock(itemId, 3));
+
+        //then
+        assertTrue(decreased);
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, itemId));
+        assertTrue("다른 상품 캐시는 그대로", entityManagerFactory.getCache().contains(Item.class, other.getId()));
+        assertEquals(7, findItemInNewSession().getStockQuantity());
+    }
+
+    @Test
+    public void 카테고리에_상품을_넣으면_상품의_카테고리_컬렉션캐시도_갱신() throws Exception{
+        //given : 상품의 카테고리 목록(비어있음)이 컬렉션 캐시에 올라간 상태
+        Long categoryId = categoryService.create("캐시 카테고리", null);
+        assertEquals(0, categoryCountInNewSession());
+        org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertTrue(cache.containsCollection(Item.class.getName() + ".categories", itemId));
+
+        //when
+        categoryService.addItem(categoryId, itemId);
+
+        //then
+        assertEquals(1, categoryCountInNewSession());
+    }
+
+    @Test
+    public void 회원목록_쿼리캐시_무효화() throws Exception{
+        //given
+        int before = transactionTemplate.execute(status -> memberRepository.findAll().size());
+        long hits = statistics.getQueryCacheHitCount();
+
+        //when
+        transactionTemplate.execute(status -> memberRepository.findAll().size());
+
+        //then
+        assertEquals("두번째 조회는 쿼리 캐시에서", hits + 1, statistics.getQueryCacheHitCount());
+
+        //when : member 테이블이 바뀌면 쿼리 캐시 결과는 버려짐
+        Member member = new Member();
+        member.setName("cache-kim");
+        memberService.join(member);
+
+        //then
+        assertEquals(before + 1, (int) transactionTemplate.execute(status -> memberRepository.findAll().size()));
+    }
+
+    private int categoryCountInNewSession() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return em.find(Item.class, itemId).getCategories().size();
+        } finally {
+            em.close();
+        }
+    }
+
+    private Item findItemInNewSession() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return em.find(Item.class, itemId);
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package jpabook.jpashop.config;
+
+import org.junit.Test;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/*
+스프링 없이 순수 단위테스트
+ApplicationAvailability 는 mock : readiness 상태를 직접 정함
+ */
+public class WarmupGateFilterTest {
+
+    private final ApplicationAvailability applicationAvailability = mock(ApplicationAvailability.class);
+    private final WarmupGateFilter filter = new WarmupGateFilter(applicationAvailability);
+
+    @Test
+    public void warm_up_중에는_503() throws Exception{
+        //given
+        when(applicationAvailability.getReadinessState()).thenReturn(ReadinessState.REFUSING_TRAFFIC);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        //when
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v5/orders"), response, chain);
+
+        //then
+        assertEquals(503, response.getStatus());
+        assertEquals("5", response.getHeader("Retry-After"));
+        assertNull("다음 필터로 넘어가면 안된다.", chain.getRequest());
+    }
+
+    @Test
+    public void warm_up_중에도_actuator는_통과() throws Exception{
+        //given
+        when(applicationAvailability.getReadinessState()).thenReturn(ReadinessState.REFUSING_TRAFFIC);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        //when
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health/readiness"), response, chain);
+
+        //then
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    public void warm_up_끝나면_통과() throws Exception{
+        //given
+        when(applicationAvailability.getReadinessState()).thenReturn(ReadinessState.ACCEPTING_TRAFFIC);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        //when
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v5/orders"), response, chain);
+
+        //then
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Retry-After"));
+        assertNotNull(chain.getRequest());
+    }
+}
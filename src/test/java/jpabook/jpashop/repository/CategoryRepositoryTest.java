@@ -0,0 +1,120 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class CategoryRepositoryTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Test
+    public void 서브트리_상품조회() throws Exception{
+        //given : 도서(book1) > IT(book2) > JPA(book1)
+        Book book1 = createBook("JPA 프로그래밍");
+        Book book2 = createBook("토비의 스프링");
+        Category root = createCategory("도서", null, book1);
+        Category it = createCategory("IT", root, book2);
+        Category jpa = createCategory("JPA", it, book1);
+        em.flush();
+        em.clear();
+
+        //when
+        List<Item> items = categoryRepository.findItemsInSubtree(root.getId());
+        Map<Long, Long> counts = categoryRepository.countItemsBySubtree(root.getId());
+
+        //then
+        assertEquals("여러 카테고리에 걸친 상품은 한번만", List.of(book1.getId(), book2.getId()),
+                items.stream().map(Item::getId).toList());
+        assertEquals(List.of(root.getId(), it.getId(), jpa.getId()), List.copyOf(counts.keySet()));
+        assertEquals(2L, (long) counts.get(root.getId()));
+        assertEquals(2L, (long) counts.get(it.getId()));
+        assertEquals(1L, (long) counts.get(jpa.getId()));
+    }
+
+    @Test
+    public void 서브트리_이동() throws Exception{
+        //given : 도서 > IT > JPA(book1) 에서 JPA를 전자책 밑으로
+        Book book1 = createBook("JPA 프로그래밍");
+        Category root = createCategory("도서", null);
+        Category it = createCategory("IT", root);
+        Category jpa = createCategory("JPA", it, book1);
+        Category ebook = createCategory("전자책", null);
+        em.flush();
+        em.clear();
+
+        //when
+        categoryRepository.findOne(ebook.getId()).addChildCategory(categoryRepository.findOne(jpa.getId()));
+        em.flush();
+        em.clear();
+
+        //then
+        assertTrue("옮기기 전 조상에서는 빠져야 한다.", categoryRepository.findItemsInSubtree(root.getId()).isEmpty());
+        assertEquals(Map.of(root.getId(), 0L, it.getId(), 0L), categoryRepository.countItemsBySubtree(root.getId()));
+        assertEquals(1, categoryRepository.findItemsInSubtree(ebook.getId()).size());
+        assertEquals(1L, (long) categoryRepository.countItemsBySubtree(ebook.getId()).get(jpa.getId()));
+    }
+
+    @Test
+    public void 자기_서브트리_밑으로는_이동불가() throws Exception{
+        //given : 도서 > IT > JPA
+        Category root = createCategory("도서", null);
+        Category it = createCategory("IT", root);
+        Category jpa = createCategory("JPA", it);
+        em.flush();
+        em.clear();
+        Category loadedRoot = categoryRepository.findOne(root.getId());
+        Category loadedJpa = categoryRepository.findOne(jpa.getId());
+
+        //when, then : 순환이 생기면 조상 경로를 다시 맞추다 StackOverflowError
+        try {
+            loadedJpa.addChildCategory(loadedRoot);
+            fail("자손 밑으로 옮기면 예외가 발생해야 한다.");
+        } catch (IllegalArgumentException e) {
+            assertNull("거부되면 부모가 바뀌지 않아야 한다.", loadedRoot.getParent());
+        }
+        try {
+            loadedRoot.addChildCategory(loadedRoot);
+            fail("자기 자신 밑으로 옮기면 예외가 발생해야 한다.");
+        } catch (IllegalArgumentException e) {
+            assertFalse(loadedRoot.getChild().contains(loadedRoot));
+        }
+    }
+
+    private Category createCategory(String name, Category parent, Item... items) {
+        Category category = new Category();
+        category.setName(name);
+        category.getItems().addAll(List.of(items));
+        if (parent != null) {
+            parent.addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        return category;
+    }
+
+    private Book createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        return book;
+    }
+}
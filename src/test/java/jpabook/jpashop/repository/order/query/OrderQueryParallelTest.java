@@ -0,0 +1,114 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.CommittedData;
+import jpabook.jpashop.config.OrderQueryCacheConfig;
+import jpabook.jpashop.config.QueryCounter;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/*
+parallelFanOut 은 트랜잭션 밖에서만 동작하므로 테스트 트랜잭션(롤백)으로 감싸지 않음
+=> 주문은 커밋해서 만들고, 끝나고 만든 row만 지움
+루트쿼리/컬렉션쿼리가 queryExecutor 스레드에서 각자 EntityManager(= 커넥션)로 실행되는지
+ - 요청 스레드의 QueryCounter(ThreadLocal)에는 SQL이 하나도 안 잡혀야 함
+ - 세션(EntityManager)이 두개 열려야 함
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"jpashop.query.parallel-fan-out=true", "jpashop.query-counter.enabled=true"})
+public class OrderQueryParallelTest {
+
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired CacheManager cacheManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    private CommittedData committedData;
+
+    @Before
+    public void setUp() {
+        committedData = CommittedData.snapshot(jdbcTemplate, entityManagerFactory);
+        cacheManager.getCache(OrderQueryCacheConfig.ORDER_QUERY_DTOS).clear();
+    }
+
+    @After
+    public void tearDown() {
+        QueryCounter.clear();
+        cacheManager.getCache(OrderQueryCacheConfig.ORDER_QUERY_DTOS).clear();
+        committedData.deleteCreated();
+    }
+
+    @Test
+    public void 트랜잭션_밖이면_루트와_컬렉션을_각자_커넥션으로() throws Exception{
+        //given
+        Map<Long, String> itemNameByOrder = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                Order order = createOrder("parallel-" + i, "JPA" + i);
+                itemNameByOrder.put(order.getId(), "JPA" + i);
+            }
+        });
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long sessionsBefore = statistics.getSessionOpenCount();
+
+        //when
+        QueryCounter counter = QueryCounter.start();
+        List<OrderQueryDto> result = orderQueryRepository.findAllByDto_optimiztion();
+
+        //then
+        Map<Long, OrderQueryDto> byId = new HashMap<>();
+        result.forEach(o -> byId.put(o.getOrderId(), o));
+        itemNameByOrder.forEach((orderId, itemName) -> {
+            OrderQueryDto order = byId.get(orderId);
+            assertNotNull("커밋된 주문은 모두 나와야 한다.", order);
+            assertEquals(1, order.getOrderItems().size());
+            assertEquals(itemName, order.getOrderItems().get(0).getItemName());
+        });
+        assertEquals("요청 스레드에서는 SQL이 나가지 않아야 한다.", 0, counter.getTotal());
+        assertEquals("루트/컬렉션 쿼리가 각자 EntityManager로", 2, statistics.getSessionOpenCount() - sessionsBefore);
+    }
+
+    private Order createOrder(String memberName, String itemName) {
+        Member member = new Member();
+        member.setName(memberName);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        Book book = new Book();
+        book.setName(itemName);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1));
+        em.persist(order);
+        return order;
+    }
+}
@@ -0,0 +1,103 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.config.OrderQueryCacheConfig;
+import jpabook.jpashop.config.QueryCounter;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/*
+주문 id를 inChunkSize(4)개씩 나눠서 in 쿼리 + in_clause_parameter_padding
+SQL은 p6spy 리스너(QueryCounter)로 모양별로 집계
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"jpashop.query.in-chunk-size=4", "jpashop.query-counter.enabled=true"})
+@Transactional
+public class OrderQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    OrderQueryRepository orderQueryRepository;
+    @Autowired
+    CacheManager cacheManager;
+
+    @After
+    public void tearDown() {
+        QueryCounter.clear();
+    }
+
+    @Test
+    public void 주문id를_chunk로_나누고_마지막_chunk는_패딩() throws Exception{
+        //given : 전체 주문 수가 4로 나눈 나머지 3이 되도록 => 마지막 chunk 3개가 4개로 패딩되어야 함
+        long existing = em.createQuery("select count(o) from Order o", Long.class).getSingleResult();
+        int orderCount = (int) (4 + (3 - existing % 4 + 4) % 4);
+        for (int i = 0; i < orderCount; i++) {
+            createOrder("회원" + i);
+        }
+        em.flush();
+        em.clear();
+        long total = existing + orderCount;
+        cacheManager.getCache(OrderQueryCacheConfig.ORDER_QUERY_DTOS).clear();
+
+        //when
+        QueryCounter counter = QueryCounter.start();
+        List<OrderQueryDto> result = orderQueryRepository.findAllByDto_optimiztion();
+
+        //then
+        assertEquals(total, result.size());
+        result.forEach(o -> assertNotNull("주문상품이 모든 chunk에서 채워져야 한다.", o.getOrderItems()));
+
+        List<QueryCounter.Repeated> inQueries = counter.findRepeated(0).stream()
+                .filter(r -> r.sql().contains("order_item"))
+                .toList();
+        assertEquals("in 절 SQL 모양은 하나로 고정되어야 한다.", 1, inQueries.size());
+        assertEquals("chunk 수만큼 in 쿼리가 나가야 한다.", (total + 3) / 4, inQueries.get(0).count());
+        assertEquals("마지막 chunk도 chunk 크기로 패딩되어야 한다.", 4, inQueries.get(0).sql().chars().filter(c -> c == '?').count());
+    }
+
+    @Test
+    public void chunk_나누기() throws Exception{
+        List<List<Long>> chunks = OrderQueryRepository.chunk(List.of(1L, 2L, 3L, 4L, 5L), 2);
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L, 4L), List.of(5L)), chunks);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void chunk_크기가_0이면_예외() throws Exception{
+        OrderQueryRepository.chunk(List.of(1L, 2L), 0);
+    }
+
+    private void createOrder(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        em.persist(Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1)));
+    }
+}
@@ -0,0 +1,71 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/*
+스프링 없이 순수 단위테스트
+ */
+public class OrderTreeCollectorTest {
+
+    @Test
+    public void 연속된_row를_주문별로_접기() throws Exception{
+        //given
+        List<OrderFlatDto> rows = List.of(row(1L, "JPA1"), row(1L, "JPA2"), row(2L, "SPRING1"));
+
+        //when
+        List<OrderQueryDto> orders = rows.stream().collect(OrderTreeCollector.toOrderTrees());
+
+        //then
+        assertEquals(2, orders.size());
+        assertEquals(2, orders.get(0).getOrderItems().size());
+        assertEquals("SPRING1", orders.get(1).getOrderItems().get(0).getItemName());
+    }
+
+    @Test
+    public void 주문상품이_없는_주문은_빈_목록으로() throws Exception{
+        //given : left join 결과, 주문 2는 주문상품 컬럼이 null
+        OrderFlatDto noItem = new OrderFlatDto(2L, "회원1", LocalDateTime.of(2024, 1, 1, 0, 0), OrderStatus.ORDER, null, null, null, null);
+        List<OrderFlatDto> rows = List.of(row(1L, "JPA1"), noItem, row(3L, "SPRING1"));
+
+        //when
+        List<OrderQueryDto> orders = rows.stream().collect(OrderTreeCollector.toOrderTrees());
+
+        //then
+        assertEquals(3, orders.size());
+        assertEquals(Long.valueOf(2), orders.get(1).getOrderId());
+        assertTrue(orders.get(1).getOrderItems().isEmpty());
+    }
+
+    @Test
+    public void 병렬스트림_경계에_걸친_주문도_하나로() throws Exception{
+        //given : 주문 10개, 주문당 주문상품 100개
+        List<OrderFlatDto> rows = new ArrayList<>();
+        for (long orderId = 1; orderId <= 10; orderId++) {
+            for (int i = 0; i < 100; i++) {
+                rows.add(row(orderId, "item" + i));
+            }
+        }
+
+        //when
+        List<OrderQueryDto> orders = rows.parallelStream().collect(OrderTreeCollector.toOrderTrees());
+
+        //then
+        assertEquals(10, orders.size());
+        IntStream.range(0, 10).forEach(i -> {
+            assertEquals(Long.valueOf(i + 1), orders.get(i).getOrderId());
+            assertEquals("순서도 유지되어야 한다.", "item99", orders.get(i).getOrderItems().get(99).getItemName());
+        });
+    }
+
+    private static OrderFlatDto row(Long orderId, String itemName) {
+        return new OrderFlatDto(orderId, "회원1", LocalDateTime.of(2024, 1, 1, 0, 0), OrderStatus.ORDER, null, itemName, 1000, 1);
+    }
+}
@@ -0,0 +1,38 @@
+package jpabook.jpashop.repository.order.simpleQuery;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/*
+스프링 없이 순수 단위테스트
+ */
+public class OrderSimpleFieldTest {
+
+    @Test
+    public void 고른_필드만() throws Exception{
+        //when
+        Set<OrderSimpleField> fields = OrderSimpleField.parse("orderId, memberName,address.city");
+
+        //then
+        assertEquals(EnumSet.of(OrderSimpleField.ORDER_ID, OrderSimpleField.MEMBER_NAME, OrderSimpleField.ADDRESS_CITY), fields);
+    }
+
+    @Test
+    public void address는_하위필드_전체() throws Exception{
+        //when
+        Set<OrderSimpleField> fields = OrderSimpleField.parse("address");
+
+        //then
+        assertEquals(EnumSet.of(OrderSimpleField.ADDRESS_CITY, OrderSimpleField.ADDRESS_STREET, OrderSimpleField.ADDRESS_ZIPCODE), fields);
+        assertTrue("주문 컬럼을 안 고르면 배송 join만 필요", fields.stream().allMatch(f -> f.getJoin() == OrderSimpleField.Join.DELIVERY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 없는_필드는_예외() throws Exception{
+        OrderSimpleField.parse("orderId,password");
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.CategoryItemLink;
+import jpabook.jpashop.repository.CategoryTreeRow;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/*
+스프링 없이 순수 단위테스트
+도서(1) > IT(2) > JPA(3)
+        > 소설(4)
+음반(5)
+ */
+public class CategoryTreeTest {
+
+    private final CategoryTree tree = CategoryTree.of(
+            List.of(new CategoryTreeRow(1L, "도서", null),
+                    new CategoryTreeRow(2L, "IT", 1L),
+                    new CategoryTreeRow(3L, "JPA", 2L),
+                    new CategoryTreeRow(4L, "소설", 1L),
+                    new CategoryTreeRow(5L, "음반", null)),
+            List.of(new CategoryItemLink(1L, 100L),
+                    new CategoryItemLink(3L, 100L),
+                    new CategoryItemLink(3L, 101L),
+                    new CategoryItemLink(4L, 102L)));
+
+    @Test
+    public void 최상위_자식() throws Exception{
+        assertEquals(List.of(1L, 5L), tree.roots().stream().map(CategoryTree.Node::id).toList());
+        assertEquals(List.of(2L, 4L), tree.children(1L).stream().map(CategoryTree.Node::id).toList());
+        assertTrue(tree.children(3L).isEmpty());
+    }
+
+    @Test
+    public void 조상_자손_브레드크럼() throws Exception{
+        assertEquals(List.of(2L, 1L), tree.ancestorIds(3L));
+        assertEquals(List.of(2L, 3L, 4L), tree.descendantIds(1L));
+        assertEquals(List.of("도서", "IT", "JPA"), tree.breadcrumb(3L).stream().map(CategoryTree.Node::name).toList());
+        assertEquals(2, tree.breadcrumb(3L).get(2).depth());
+    }
+
+    @Test
+    public void 서브트리_상품() throws Exception{
+        assertArrayEquals("중복 없이 정렬", new long[]{100L, 101L, 102L}, tree.itemIdsInSubtree(1L));
+        assertArrayEquals(new long[]{100L, 101L}, tree.itemIdsInSubtree(2L));
+        assertArrayEquals(new long[0], tree.itemIdsInSubtree(5L));
+    }
+
+    @Test
+    public void 없는_카테고리() throws Exception{
+        assertFalse(tree.contains(99L));
+        assertTrue(tree.breadcrumb(99L).isEmpty());
+        assertTrue(tree.ancestorIds(99L).isEmpty());
+        assertTrue(tree.descendantIds(99L).isEmpty());
+    }
+
+    @Test
+    public void 순환은_제외() throws Exception{
+        //given : 6 -> 7 -> 6
+        CategoryTree cyclic = CategoryTree.of(
+                List.of(new CategoryTreeRow(1L, "도서", null),
+                        new CategoryTreeRow(6L, "A", 7L),
+                        new CategoryTreeRow(7L, "B", 6L)),
+                List.of());
+
+        //then
+        assertEquals(1, cyclic.size());
+        assertFalse(cyclic.contains(6L));
+    }
+}
@@ -0,0 +1,68 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class MemberImportServiceTest {
+
+    @Autowired MemberImportService memberImportService;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void 회원_CSV_적재() throws Exception{
+        //given
+        Member existing = new Member();
+        existing.setName("import-기존");
+        memberService.join(existing);
+
+        String csv = "name,city,street,zipcode\n" +
+                "import-kim,서울,\"강남대로 1, 101호\",12345\n" +
+                "import-lee\n" +
+                "\n" +
+                "import-기존,부산,해운대,67890\n" +
+                "import-kim,서울,테헤란로,11111\n" +
+                ",서울,강가,22222\n" +
+                "\"import-park,서울\n" +
+                "import-choi,대구,동성로,33333\n";
+
+        //when : chunk 2개 (kim, lee / 기존, kim(파일 안 중복이지만 chunk가 달라 db에서 걸림), 빈이름, 따옴표, choi)
+        MemberImportResult result = memberImportService.importCsv(new StringReader(csv), 2);
+
+        //then
+        assertEquals(7, result.getLines());
+        assertEquals(3, result.getImported());
+        assertEquals(4, result.getRejectedCount());
+        assertEquals(List.of(5L, 6L, 7L, 8L), result.getRejected().stream().map(MemberImportResult.Rejected::getLine).toList());
+
+        Member kim = memberRepository.findByName("import-kim").get(0);
+        assertEquals("강남대로 1, 101호", kim.getAddress().getStreet());
+        assertNull("주소 컬럼이 없으면 주소 없음", memberRepository.findByName("import-lee").get(0).getAddress());
+        assertEquals(1, memberRepository.findByName("import-choi").size());
+    }
+
+    @Test
+    public void chunk_안_중복() throws Exception{
+        //when
+        MemberImportResult result = memberImportService.importCsv(new StringReader("import-dup\nimport-dup\n"), 1000);
+
+        //then
+        assertEquals(1, result.getImported());
+        assertEquals("파일 안에서 중복된 회원 입니다.", result.getRejected().get(0).getReason());
+        assertEquals(2L, result.getRejected().get(0).getLine());
+    }
+}
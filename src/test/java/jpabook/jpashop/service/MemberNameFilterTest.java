@@ -0,0 +1,53 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/*
+스프링 없이 순수 단위테스트
+ */
+public class MemberNameFilterTest {
+
+    private final MemberNameFilter filter = new MemberNameFilter(10_000, 0.01, new SimpleMeterRegistry());
+
+    @Test
+    public void 준비_전에는_항상_있을수있음() throws Exception{
+        assertTrue(filter.mightContain("kim"));
+    }
+
+    @Test
+    public void 넣은_이름은_항상_있음() throws Exception{
+        //given
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+        filter.markReady();
+
+        //then
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("member" + i));
+        }
+    }
+
+    @Test
+    public void 오탐률() throws Exception{
+        //given
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+        filter.markReady();
+
+        //when
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+
+        //then
+        assertTrue("오탐률 1% 근처 : " + falsePositives, falsePositives < 2_000);
+    }
+}
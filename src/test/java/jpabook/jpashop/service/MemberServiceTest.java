@@ -72,6 +72,23 @@ public class MemberServiceTest { // tips 테스트 class 만들기 ctrl + shift
         // Assert.fail : 이 코드에 도달하면 잘못된거임!
         fail("예외가 발생해야 함");
     }
+
+    @Test(expected = IllegalStateException.class)
+    public void 중복_회원_unique_제약조건() throws Exception{
+        //given : 다른 서버에서 가입해서 이름 필터는 모르는 회원
+        Member other = new Member();
+        other.setName("lee");
+        em.persist(other);
+
+        Member member = new Member();
+        member.setName("lee");
+
+        //when
+        memberService.join(member); // 필터가 "없다"고 해도 unique 제약조건 위반을 같은 예외로
+
+        //then
+        fail("예외가 발생해야 함");
+    }
 }
 /*
 외부에 있는 DB로 테스트를 진행했음. 테스트를 여려환경에서 병렬로 돌릴경우, 외부db를 설치해야하는 번거로움이 있음
@@ -0,0 +1,129 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jpabook.jpashop.config.StockProperties;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/*
+스프링 없이 순수 단위테스트
+OrderService 는 mock : 낙관적 락 충돌(OptimisticLockingFailureException)을 원하는 횟수만큼 던지게 함
+ */
+public class OrderFacadeTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final StockProperties stockProperties = new StockProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StockReservationEngine disabledEngine = new StockReservationEngine(false, 1, itemId -> null, deltas -> {});
+    private final OrderFacade orderFacade = new OrderFacade(orderService, disabledEngine, stockProperties, meterRegistry);
+
+    // 예약 엔진을 켠 경우 : 상품 2번 재고 5
+    private final StockReservationEngine engine = new StockReservationEngine(true, 1, itemId -> 5, deltas -> {});
+    private final OrderFacade reservingFacade = new OrderFacade(orderService, engine, stockProperties, meterRegistry);
+
+    {
+        stockProperties.getConcurrency().setMaxRetries(2);
+        stockProperties.getConcurrency().setBackoffMs(0);
+    }
+
+    @Test
+    public void 충돌하면_재시도() throws Exception{
+        //given
+        when(orderService.order(1L, 2L, 3))
+                .thenThrow(new OptimisticLockingFailureException("충돌"))
+                .thenThrow(new OptimisticLockingFailureException("충돌"))
+                .thenReturn(10L);
+
+        //when
+        Long orderId = orderFacade.order(1L, 2L, 3);
+
+        //then
+        assertEquals(10L, (long) orderId);
+        verify(orderService, times(3)).order(1L, 2L, 3);
+        assertEquals(2, meterRegistry.counter("jpashop.stock.conflict", "result", "retried").count(), 0);
+    }
+
+    @Test
+    public void 재시도횟수를_넘으면_포기() throws Exception{
+        //given
+        when(orderService.order(1L, 2L, 3)).thenThrow(new OptimisticLockingFailureException("충돌"));
+
+        //when
+        try {
+            orderFacade.order(1L, 2L, 3);
+            fail("재시도 후에도 충돌하면 예외가 나가야 한다.");
+        } catch (OptimisticLockingFailureException e) {
+            //then
+            verify(orderService, times(3)).order(1L, 2L, 3); // 처음 1번 + 재시도 2번
+            assertEquals(1, meterRegistry.counter("jpashop.stock.conflict", "result", "aborted").count(), 0);
+        }
+    }
+
+    @Test
+    public void 충돌이_아닌_예외는_재시도하지_않음() throws Exception{
+        //given
+        when(orderService.order(1L, 2L, 3)).thenThrow(new IllegalStateException("need more stock"));
+
+        //when
+        try {
+            orderFacade.order(1L, 2L, 3);
+            fail();
+        } catch (IllegalStateException e) {
+            //then
+            verify(orderService, times(1)).order(1L, 2L, 3);
+        }
+    }
+
+    @Test
+    public void 품절이면_주문서비스_호출없이_거절() throws Exception{
+        //when
+        try {
+            reservingFacade.order(1L, 2L, 6);
+            fail("재고 부족 예외가 발생해야 한다.");
+        } catch (NotEnoughStockException e) {
+            //then : 트랜잭션(= OrderService 프록시)까지 가지 않음
+            verifyNoInteractions(orderService);
+            assertEquals(5, engine.available(2L));
+        }
+    }
+
+    @Test
+    public void 주문이_실패하면_예약을_되돌림() throws Exception{
+        //given
+        when(orderService.order(eq(1L), any(StockReservation.class))).thenThrow(new IllegalStateException("실패"));
+
+        //when
+        try {
+            reservingFacade.order(1L, 2L, 3);
+            fail();
+        } catch (IllegalStateException e) {
+            //then
+            assertEquals("예약한 3개가 돌아와야 한다.", 5, engine.available(2L));
+        }
+    }
+
+    @Test
+    public void 충돌_재시도중에는_예약을_유지() throws Exception{
+        //given : 두번째 시도 때의 주문 가능 수량을 기록
+        AtomicInteger availableOnRetry = new AtomicInteger(-1);
+        when(orderService.order(eq(1L), any(StockReservation.class)))
+                .thenThrow(new OptimisticLockingFailureException("충돌"))
+                .thenAnswer(invocation -> {
+                    availableOnRetry.set(engine.available(2L));
+                    return 10L;
+                });
+
+        //when
+        Long orderId = reservingFacade.order(1L, 2L, 3);
+
+        //then
+        assertEquals(10L, (long) orderId);
+        assertEquals("롤백된 첫 시도 때문에 예약이 풀리면 안된다.", 2, availableOnRetry.get());
+    }
+}
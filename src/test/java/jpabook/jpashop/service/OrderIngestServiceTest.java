@@ -0,0 +1,115 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.CommittedData;
+import jpabook.jpashop.config.OrderQueryCacheConfig;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/*
+chunk마다 커밋되는지, 커밋된 뒤 캐시가 비워지는지를 봐야 하므로 테스트 트랜잭션(롤백)으로 감싸지 않음
+=> 끝나고 커밋된 데이터를 직접 지움
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderIngestServiceTest {
+
+    @Autowired OrderIngestService orderIngestService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired CacheManager cacheManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    private Long memberId;
+    private Long itemId;
+    private CommittedData committedData;
+
+    @Before
+    public void setUp() {
+        committedData = CommittedData.snapshot(jdbcTemplate, entityManagerFactory);
+        Member member = new Member();
+        member.setName("ingest-kim");
+        memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("JPA 프로그래밍");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        itemId = book.getId();
+    }
+
+    @After
+    public void tearDown() {
+        committedData.deleteCreated();
+    }
+
+    @Test
+    public void chunk별_적재와_거절() throws Exception{
+        //given : chunk 3개 (2, 2, 1)
+        List<IngestOrder> orders = List.of(
+                order(memberId, 2),
+                order(999_999L, 1),       // 없는 회원
+                new IngestOrder(memberId, List.of(), null), // 주문상품 없음
+                order(memberId, 100),     // 재고 부족
+                order(memberId, 3));
+
+        //when
+        IngestResult result = orderIngestService.ingest(orders, 2);
+
+        //then
+        assertEquals(2, result.getAccepted());
+        assertEquals(3, result.getRejectedCount());
+        assertEquals(List.of(1, 2, 3), result.getRejected().stream().map(IngestResult.Rejected::getIndex).toList());
+        assertEquals("존재하지 않는 회원 입니다.", result.getRejected().get(0).getReason());
+        assertEquals("need more stock", result.getRejected().get(2).getReason());
+        assertEquals("주문 + 배송 + 주문상품", 6, result.getRows());
+
+        // 테스트 트랜잭션이 없으므로 보이는 것은 모두 커밋된 것
+        assertEquals(2, (int) jdbcTemplate.queryForObject("select count(*) from orders where member_id = ?", Integer.class, memberId));
+        assertEquals(5, (int) jdbcTemplate.queryForObject("select stock_quantity from item where item_id = ?", Integer.class, itemId));
+    }
+
+    @Test
+    public void 적재가_커밋되면_조회캐시_무효화() throws Exception{
+        //given
+        Cache cache = cacheManager.getCache(OrderQueryCacheConfig.ORDER_QUERY_DTOS);
+        cache.put("probe", List.of());
+
+        //when : 모두 거절된 chunk는 캐시를 건드리지 않음
+        orderIngestService.ingest(List.of(order(999_999L, 1)), 10);
+
+        //then
+        assertNotNull(cache.get("probe"));
+
+        //when
+        orderIngestService.ingest(List.of(order(memberId, 1)), 10);
+
+        //then
+        assertNull("적재된 chunk가 커밋되면 비워져야 한다.", cache.get("probe"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chunkSize가_0이면_예외() throws Exception{
+        orderIngestService.ingest(List.of(order(memberId, 1)), 0);
+    }
+
+    private IngestOrder order(Long memberId, int count) {
+        return new IngestOrder(memberId, List.of(new OrderLine(itemId, count)), null);
+    }
+}
@@ -5,17 +5,27 @@ import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.OrderFetchPlan;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.simpleQuery.OrderSummaryRepository;
+import org.hibernate.Hibernate;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.junit.Assert.*;
 /*
 JPA동작을 보여주기 위해 Spring환경에서 테스트를 했지만,
@@ -31,6 +41,10 @@ public class OrderServiceTest {
     OrderService orderService;
     @Autowired
     OrderRepository orderRepository;
+    @Autowired
+    OrderSummaryRepository orderSummaryRepository;
+    @Autowired
+    MemberService memberService;
 
     @Test
     public void 상품주문() throws Exception{
@@ -87,6 +101,156 @@ public class OrderServiceTest {
     }
 
 
+    @Test
+    public void 장바구니주문() throws Exception{
+        //given
+        Member member = createMember();
+        Book book1 = createBook("시골 JPA", 10000, 10);
+        Book book2 = createBook("시골 Spring", 20000, 10);
+        List<OrderLine> lines = List.of(
+                new OrderLine(book2.getId(), 1),
+                new OrderLine(book1.getId(), 2),
+                new OrderLine(book1.getId(), 1)); // 같은 상품은 한 줄로 합쳐짐
+
+        //when
+        Long orderId = orderService.order(member.getId(), lines);
+
+        //then
+        Order getOrder = orderRepository.findOne(orderId);
+
+        assertEquals("상품 종류 수만큼 주문상품이 생성된다.", 2, getOrder.getOrderItem().size());
+        assertEquals("주문 가격은 상품별 가격*수량의 합이다.", 10000*3 + 20000, getOrder.getTotalPrice());
+        assertEquals(7, book1.getStockQuantity());
+        assertEquals(9, book2.getStockQuantity());
+    }
+
+    @Test
+    public void 주문요약_주문취소시_같이변경() throws Exception{
+        //given
+        Member member = createMember();
+        Book book = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), List.of(new OrderLine(book.getId(), 3)));
+
+        //when
+        orderService.cancelOrder(orderId);
+
+        //then
+        OrderSummary summary = orderSummaryRepository.findOne(orderId);
+        assertEquals("회원1", summary.getMemberName());
+        assertEquals(1, summary.getItemCount());
+        assertEquals(30000, summary.getTotalPrice());
+        assertEquals("주문 취소 시 요약 상태도 CANCEL", OrderStatus.CANCEL, summary.getStatus());
+    }
+
+    @Test
+    public void 주문요약_회원이름_변경시_같이변경() throws Exception{
+        //given
+        Member member = createMember();
+        Book book = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), List.of(new OrderLine(book.getId(), 1)));
+
+        //when
+        memberService.update(member.getId(), "회원1-변경");
+        em.flush();
+        em.clear(); // 벌크 update는 영속성 컨텍스트의 요약 엔티티를 안 바꿈
+
+        //then
+        assertEquals("회원1-변경", orderSummaryRepository.findOne(orderId).getMemberName());
+    }
+
+    @Test(expected = NotEnoughStockException.class)
+    public void 장바구니주문_재고수량초과() throws Exception{
+        //given
+        Member member = createMember();
+        Book book1 = createBook("시골 JPA", 10000, 10);
+        Book book2 = createBook("시골 Spring", 20000, 1);
+
+        //when
+        orderService.order(member.getId(), List.of(new OrderLine(book1.getId(), 1), new OrderLine(book2.getId(), 2)));
+
+        //then
+        fail("재고 수량 부족 에러가 발생해야 한다.");
+    }
+
+    @Test
+    public void 회원이름_부분일치_주문검색() throws Exception{
+        //given : n-gram 색인은 회원가입/이름수정 때 만들어짐
+        Member member = new Member();
+        member.setName("김영한");
+        member.setAddress(new Address("서울","강서","134-1"));
+        memberService.join(member);
+        Book book = createBook("시골 JPA", 10000, 10);
+        orderService.order(member.getId(), book.getId(), 1);
+
+        //when
+        OrderSearch middle = new OrderSearch();
+        middle.setMemberName("영한");
+        OrderSearch notContinuous = new OrderSearch();
+        notContinuous.setMemberName("김한");
+
+        //then
+        assertEquals("이름 중간의 부분문자열로도 찾아야 한다.", 1, orderService.findOrders(middle).size());
+        assertTrue("조각이 연속이 아니면 제외되어야 한다.", orderService.findOrders(notContinuous).isEmpty());
+
+        memberService.update(member.getId(), "박영수");
+        em.flush();
+        assertTrue("이름을 바꾸면 예전 이름으로는 안찾아져야 한다.", orderService.findOrders(middle).isEmpty());
+        middle.setMemberName("영수");
+        assertEquals(1, orderService.findOrders(middle).size());
+    }
+
+    @Test
+    public void 주문검색_페이징() throws Exception{
+        //given : 같은 회원 주문 3건
+        Member member = new Member();
+        member.setName("페이징회원");
+        member.setAddress(new Address("서울","강서","134-1"));
+        memberService.join(member);
+        Book book = createBook("시골 JPA", 10000, 10);
+        for (int i = 0; i < 3; i++) {
+            orderService.order(member.getId(), book.getId(), 1);
+        }
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("페이징회원");
+
+        //when
+        Slice<Order> first = orderService.searchOrders(orderSearch, PageRequest.of(0, 2));
+        orderSearch.setCountMode(OrderSearch.CountMode.NONE);
+        Slice<Order> slice = orderService.searchOrders(orderSearch, PageRequest.of(1, 2));
+
+        //then
+        assertTrue(first instanceof Page);
+        assertEquals("전체 건수", 3, ((Page<Order>) first).getTotalElements());
+        assertEquals(2, first.getContent().size());
+        assertTrue(first.hasNext());
+        assertFalse("NONE이면 count 없이 Slice", slice instanceof Page);
+        assertEquals(1, slice.getContent().size());
+        assertFalse(slice.hasNext());
+    }
+
+    @Test
+    public void 주문조회_fetch_plan() throws Exception{
+        //given
+        Member member = createMember();
+        Book book = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+        em.flush();
+        em.clear();
+
+        //when
+        Order order = orderRepository.findOne(orderId, OrderFetchPlan.WITH_ITEMS);
+
+        //then
+        assertTrue("plan의 연관관계는 같이 조회", Hibernate.isInitialized(order.getMember()));
+        assertTrue(Hibernate.isInitialized(order.getOrderItem()));
+        assertFalse("plan에 없는 연관관계는 지연로딩", Hibernate.isInitialized(order.getDelivery()));
+        try {
+            orderRepository.findAll2Page(new OrderSearch(), 0, 10, OrderFetchPlan.WITH_ITEMS);
+            fail("컬렉션 plan은 페이징 조회에서 거절되어야 한다.");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
     private Book createBook(String name, int price, int stockQuantity) {
         Book book = new Book();
         book.setName(name); //TIPS 파라미터로 꺼내기 단축키 ctrl alt P
@@ -0,0 +1,141 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.CommittedData;
+import jpabook.jpashop.config.StockProperties;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/*
+재고 차감 동시성 제어 방식별로 한 상품에 주문이 몰려도 초과판매가 없는지
+여러 스레드가 각자 커밋해야 하므로 테스트 트랜잭션(롤백)으로 감싸지 않음 => 끝나고 직접 정리
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StockConcurrencyTest {
+
+    private static final int STOCK = 10;
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 4;
+
+    @Autowired OrderFacade orderFacade;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired StockProperties stockProperties;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    private StockConcurrencyMode originalMode;
+    private int originalMaxRetries;
+    private Long memberId;
+    private Long itemId;
+    private CommittedData committedData;
+
+    @Before
+    public void setUp() {
+        committedData = CommittedData.snapshot(jdbcTemplate, entityManagerFactory);
+        originalMode = stockProperties.getConcurrency().getMode();
+        originalMaxRetries = stockProperties.getConcurrency().getMaxRetries();
+
+        Member member = new Member();
+        member.setName("concurrency-kim");
+        memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("한정판");
+        book.setPrice(10000);
+        book.setStockQuantity(STOCK);
+        itemService.saveItem(book);
+        itemId = book.getId();
+    }
+
+    @After
+    public void tearDown() {
+        stockProperties.getConcurrency().setMode(originalMode);
+        stockProperties.getConcurrency().setMaxRetries(originalMaxRetries);
+        committedData.deleteCreated();
+    }
+
+    @Test
+    public void 비관적락_초과판매없음() throws Exception{
+        int success = orderConcurrently(StockConcurrencyMode.PESSIMISTIC);
+        assertEquals("row lock으로 줄을 서므로 재고만큼 모두 성공", STOCK, success);
+    }
+
+    @Test
+    public void 원자적update_초과판매없음() throws Exception{
+        int success = orderConcurrently(StockConcurrencyMode.ATOMIC_UPDATE);
+        assertEquals("조건부 update라 재고만큼 모두 성공", STOCK, success);
+    }
+
+    @Test
+    public void 낙관적락_초과판매없음() throws Exception{
+        // 재시도를 넉넉히 주면 충돌해도 결국 재고만큼 성공
+        stockProperties.getConcurrency().setMaxRetries(THREADS * ORDERS_PER_THREAD);
+        int success = orderConcurrently(StockConcurrencyMode.OPTIMISTIC);
+        assertEquals(STOCK, success);
+    }
+
+    /**
+     * @return 성공한 주문 수 (재고/주문 수가 맞는지는 여기서 같이 검증)
+     */
+    private int orderConcurrently(StockConcurrencyMode mode) throws InterruptedException {
+        stockProperties.getConcurrency().setMode(mode);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger unexpected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                        try {
+                            orderFacade.order(memberId, itemId, 1);
+                            success.incrementAndGet();
+                        } catch (NotEnoughStockException | OptimisticLockingFailureException ignored) {
+                            // 품절 / 재시도 후에도 충돌 => 주문 실패는 정상
+                        } catch (RuntimeException e) {
+                            unexpected.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        int stock = jdbcTemplate.queryForObject("select stock_quantity from item where item_id = ?", Integer.class, itemId);
+        int orders = jdbcTemplate.queryForObject("select count(*) from orders where member_id = ?", Integer.class, memberId);
+        assertEquals("예상 못한 예외 없음", 0, unexpected.get());
+        assertTrue("재고는 음수가 되면 안된다.", stock >= 0);
+        assertEquals("차감된 재고 = 성공한 주문 수", STOCK - stock, success.get());
+        assertEquals(success.get(), orders);
+        return success.get();
+    }
+}
@@ -0,0 +1,219 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/*
+스프링 없이 순수 단위테스트
+DB 대신 재고 로딩/반영을 Map으로 흉내냄
+ */
+public class StockReservationEngineTest {
+
+    private final Map<Long, Integer> db = new HashMap<>();
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final StockReservationEngine engine = new StockReservationEngine(true, 4,
+            itemId -> {
+                loadCount.incrementAndGet();
+                return db.get(itemId);
+            },
+            deltas -> deltas.forEach((itemId, delta) -> db.merge(itemId, -delta, Integer::sum)));
+
+    @Test
+    public void 예약후_반영() throws Exception{
+        //given
+        db.put(1L, 10);
+
+        //when
+        engine.reserve(1L, 3);
+        engine.reserve(1L, 2);
+
+        //then
+        assertEquals("예약한 만큼 주문 가능 수량이 줄어야 한다.", 5, engine.available(1L));
+        assertEquals("flush 전에는 DB 재고가 그대로다.", 10, (int) db.get(1L));
+        engine.flush();
+        assertEquals("flush 하면 차감분이 한번에 반영된다.", 5, (int) db.get(1L));
+    }
+
+    @Test
+    public void 품절이면_DB조회없이_예외() throws Exception{
+        //given
+        db.put(1L, 1);
+        engine.reserve(1L, 1);
+
+        //when
+        try {
+            engine.reserve(1L, 1);
+            fail("재고 부족 예외가 발생해야 한다.");
+        } catch (NotEnoughStockException e) {
+            //then
+            assertEquals("재고는 최초 1번만 로딩한다.", 1, loadCount.get());
+        }
+    }
+
+    @Test
+    public void 예약취소() throws Exception{
+        //given
+        db.put(1L, 10);
+        engine.reserve(1L, 4);
+        engine.flush();
+
+        //when
+        engine.release(1L, 4);
+        engine.flush();
+
+        //then
+        assertEquals(10, engine.available(1L));
+        assertEquals("이미 반영된 차감분도 복구된다.", 10, (int) db.get(1L));
+    }
+
+    @Test
+    public void evict하면_차감분반영후_다시로딩() throws Exception{
+        //given
+        db.put(1L, 10);
+        engine.reserve(1L, 4);
+
+        //when
+        engine.evict(1L);
+        db.put(1L, 100); // 상품 수정으로 재고를 직접 변경
+
+        //then
+        assertEquals(100, engine.available(1L));
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void 상품수정은_차이만큼_조정() throws Exception{
+        //given : 재고 10, 3개 예약된 상태에서 관리자가 재고를 20으로 수정
+        db.put(1L, 10);
+        engine.reserve(1L, 3);
+        int delta = 20 - engine.available(1L);
+
+        //when : 수정 트랜잭션이 커밋되기 전에 2개 더 예약
+        engine.reserve(1L, 2);
+        engine.adjust(1L, delta);
+        engine.flush();
+
+        //then
+        assertEquals("입력한 재고에서 수정 중 예약분만 빠진다.", 18, engine.available(1L));
+        assertEquals(18, (int) db.get(1L));
+    }
+
+    @Test
+    public void 재고를_줄여도_0밑으로_안내려감() throws Exception{
+        //given
+        db.put(1L, 10);
+        engine.reserve(1L, 8);
+
+        //when
+        engine.adjust(1L, -5);
+        engine.flush();
+
+        //then
+        assertEquals(0, engine.available(1L));
+        assertEquals("DB 재고 = 주문 가능 + 미반영 차감분", 0, (int) db.get(1L));
+    }
+
+    @Test
+    public void 동시_예약시_초과판매없음() throws Exception{
+        //given
+        db.put(1L, 1000);
+        int threads = 8;
+        int tries = 500;
+        AtomicInteger success = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+
+        //when
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < tries; i++) {
+                    try {
+                        engine.reserve(1L, 1);
+                        success.incrementAndGet();
+                    } catch (NotEnoughStockException ignored) {
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        latch.await(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        engine.flush();
+
+        //then
+        assertEquals("재고 수량만큼만 성공해야 한다.", 1000, success.get());
+        assertEquals(0, (int) db.get(1L));
+    }
+
+    @Test
+    public void write_back_중에는_evict가_커밋을_기다림() throws Exception{
+        //given : write-back이 커밋되기 전에 멈추는 DB
+        Map<Long, Integer> slowDb = new ConcurrentHashMap<>(Map.of(1L, 10));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        StockReservationEngine slowEngine = new StockReservationEngine(true, 4, slowDb::get, deltas -> {
+            writing.countDown();
+            try {
+                commit.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            deltas.forEach((itemId, delta) -> slowDb.merge(itemId, -delta, Integer::sum));
+        });
+        slowEngine.reserve(1L, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //when : flush가 차감분 4를 가져가서 write-back 중일때 evict
+        executor.execute(slowEngine::flush);
+        writing.await(5, TimeUnit.SECONDS);
+        Future<?> evicted = executor.submit(() -> slowEngine.evict(1L));
+
+        //then
+        try {
+            evicted.get(200, TimeUnit.MILLISECONDS);
+            fail("write-back이 커밋되기 전에 evict가 끝나면 반영 전 재고로 다시 로딩된다.");
+        } catch (TimeoutException expected) {
+        }
+        commit.countDown();
+        evicted.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals("다시 로딩해도 예약분은 빠져 있어야 한다.", 6, slowEngine.available(1L));
+    }
+
+    @Test
+    public void write_back이_실패하면_다음_flush에_재시도() throws Exception{
+        //given
+        db.put(1L, 10);
+        AtomicInteger calls = new AtomicInteger();
+        StockReservationEngine flakyEngine = new StockReservationEngine(true, 4, db::get, deltas -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("DB 장애");
+            }
+            deltas.forEach((itemId, delta) -> db.merge(itemId, -delta, Integer::sum));
+        });
+        flakyEngine.reserve(1L, 4);
+
+        //when
+        flakyEngine.flush();
+        flakyEngine.reserve(1L, 1);
+        flakyEngine.flush();
+
+        //then
+        assertEquals("실패한 차감분도 다음 flush에 같이 반영된다.", 5, (int) db.get(1L));
+        assertEquals(5, flakyEngine.available(1L));
+    }
+}